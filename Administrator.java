@@ -2,9 +2,12 @@
  * Administrator user with full permissions for system management
  */
 public class Administrator extends User {
-    // Constructor calls parent User class with provided username
-    public Administrator(String username) { 
-        super(username); 
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = 4364962170609131916L;
+    
+    // Constructor calls parent User class with provided username and ID
+    public Administrator(String username, String userId) { 
+        super(username, userId); 
     }
     
     @Override
@@ -0,0 +1,120 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background autosave for a CampusSystem whose journal is synced by saves
+ * (see CampusSystem.enableJournal)
+ * Saves once a set number of changes is waiting, or once a set time has
+ * passed since the last save with any change waiting, so a crash loses at
+ * most about that many changes, or that much time (plus whatever is made
+ * while a save runs); bookings never wait for the disk. A burst of changes
+ * between two saves is written by one save.
+ */
+public class AutoSaver implements AutoCloseable {
+    // Longest the worker waits before checking whether it has been closed
+    private static final long POLL_MILLIS = 200;
+
+    // System being saved, and the file it is saved to
+    private final CampusSystem campus;
+    private final String filename;
+    // Waiting changes that trigger a save straight away
+    private final long changeThreshold;
+    // Longest time changes may wait before a save
+    private final long intervalMillis;
+    // Thread writing the saves
+    private final Thread worker;
+    // Set by close(); the worker stops at its next check
+    private volatile boolean closed;
+
+    // Statistics: saves written, the duration of the last one, and when it finished
+    private volatile long saveCount;
+    private volatile long lastSaveMillis;
+    private volatile long lastSaveAt;
+
+    // Constructor starts the worker thread
+    public AutoSaver(CampusSystem campus, String filename, long changeThreshold,
+                     long interval, TimeUnit unit) {
+        if (changeThreshold < 1) {
+            throw new IllegalArgumentException("Change threshold must be at least 1");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        this.campus = campus;
+        this.filename = filename;
+        this.changeThreshold = changeThreshold;
+        this.intervalMillis = unit.toMillis(interval);
+        this.lastSaveAt = System.currentTimeMillis();
+        this.worker = new Thread(this::runWorker, "campus-autosaver");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Waits for enough changes or the interval, then saves, until closed
+    private void runWorker() {
+        long lastCheck = System.currentTimeMillis();
+        while (!closed) {
+            long untilDue = lastCheck + intervalMillis - System.currentTimeMillis();
+            // Wake once changeThreshold changes are waiting
+            long target = campus.getJournaledChangeCount() - campus.getUnsavedChangeCount()
+                          + changeThreshold;
+            try {
+                campus.awaitJournaledChanges(target, Math.max(1, Math.min(untilDue, POLL_MILLIS)));
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (closed) return;
+            long unsaved = campus.getUnsavedChangeCount();
+            boolean due = System.currentTimeMillis() - lastCheck >= intervalMillis;
+            if (unsaved >= changeThreshold || (due && unsaved > 0)) {
+                runSave();
+                lastCheck = System.currentTimeMillis();
+            } else if (due) {
+                lastCheck = System.currentTimeMillis();
+            }
+        }
+    }
+
+    // Writes one save, reporting a failure rather than stopping
+    private void runSave() {
+        long start = System.nanoTime();
+        try {
+            campus.autosave(filename);
+            lastSaveMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            lastSaveAt = System.currentTimeMillis();
+            saveCount++;
+        } catch (DataPersistenceException e) {
+            System.out.println("Autosave failed: " + e.getMessage());
+        }
+    }
+
+    // Returns the number of saves written so far
+    public long getSaveCount() { return saveCount; }
+
+    // Returns how long the most recent save took, in milliseconds
+    public long getLastSaveMillis() { return lastSaveMillis; }
+
+    // Returns the time since the last save finished (or since starting), in milliseconds
+    public long getMillisSinceLastSave() {
+        return System.currentTimeMillis() - lastSaveAt;
+    }
+
+    // Returns the number of changes a crash now would lose
+    public long getUnsavedChangeCount() { return campus.getUnsavedChangeCount(); }
+
+    // Stops the worker, waiting for a save in progress to finish, then saves
+    // any changes still waiting; safe to call more than once
+    @Override
+    public synchronized void close() {
+        closed = true;
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (campus.getUnsavedChangeCount() > 0) runSave();
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Campus-wide free/busy index over resource ordinals
+ * Keeps one bit set per (day, slot) with a bit for every resource free at that time
+ *
+ * Bits are stored in fixed-size pages of atomic words, so bookings on different
+ * resources can flip bits in the same word concurrently. Adding resources only
+ * appends pages, so a page is never copied while another thread updates it.
+ */
+public class AvailabilityIndex {
+    // Resource ordinals covered by one page (a multiple of 64)
+    private static final int PAGE_BITS = 1024;
+    private static final int WORDS_PER_SLOT = PAGE_BITS / 64;
+
+    // Pages of words: page p holds ordinals [p * PAGE_BITS, (p + 1) * PAGE_BITS),
+    // laid out slot by slot with WORDS_PER_SLOT words per slot
+    private volatile AtomicLongArray[] pages;
+
+    // Constructor creates an index with no resources registered
+    public AvailabilityIndex() {
+        pages = new AtomicLongArray[0];
+    }
+
+    // Registers a resource as free in every slot of the week
+    // (callers serialize resource registration against each other)
+    public void addResource(int ordinal) {
+        int page = ordinal / PAGE_BITS;
+        if (page >= pages.length) {
+            AtomicLongArray[] grown = Arrays.copyOf(pages, page + 1);
+            for (int p = pages.length; p < grown.length; p++) {
+                grown[p] = new AtomicLongArray(ResourceSchedule.SLOTS_PER_WEEK * WORDS_PER_SLOT);
+            }
+            pages = grown;
+        }
+        for (int index = 0; index < ResourceSchedule.SLOTS_PER_WEEK; index++) {
+            setBit(ordinal, index);
+        }
+    }
+
+    // Drops a resource from every slot of the week
+    public void removeResource(int ordinal) {
+        for (int index = 0; index < ResourceSchedule.SLOTS_PER_WEEK; index++) {
+            clearBit(ordinal, index);
+        }
+    }
+
+    // Marks a resource as booked at a specific day/time slot
+    public void markReserved(int ordinal, int day, int slot) {
+        clearBit(ordinal, day * ResourceSchedule.SLOTS_PER_DAY + slot);
+    }
+
+    // Marks a resource as free again at a specific day/time slot
+    public void markFree(int ordinal, int day, int slot) {
+        setBit(ordinal, day * ResourceSchedule.SLOTS_PER_DAY + slot);
+    }
+
+    // Returns a copy of the ordinals free at a specific day/time slot
+    public BitSet freeAt(int day, int slot) {
+        int index = day * ResourceSchedule.SLOTS_PER_DAY + slot;
+        AtomicLongArray[] current = pages;
+        long[] words = new long[current.length * WORDS_PER_SLOT];
+        for (int p = 0; p < current.length; p++) {
+            for (int w = 0; w < WORDS_PER_SLOT; w++) {
+                words[p * WORDS_PER_SLOT + w] = current[p].get(index * WORDS_PER_SLOT + w);
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    // Atomically sets one resource's bit for one slot of the week
+    private void setBit(int ordinal, int slotIndex) {
+        long mask = 1L << (ordinal % 64);
+        pages[ordinal / PAGE_BITS].getAndUpdate(wordIndex(ordinal, slotIndex), word -> word | mask);
+    }
+
+    // Atomically clears one resource's bit for one slot of the week
+    private void clearBit(int ordinal, int slotIndex) {
+        long mask = 1L << (ordinal % 64);
+        pages[ordinal / PAGE_BITS].getAndUpdate(wordIndex(ordinal, slotIndex), word -> word & ~mask);
+    }
+
+    // Position of the word holding an ordinal's bit for a slot within its page
+    private static int wordIndex(int ordinal, int slotIndex) {
+        return slotIndex * WORDS_PER_SLOT + (ordinal % PAGE_BITS) / 64;
+    }
+}
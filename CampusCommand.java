@@ -0,0 +1,9 @@
+/**
+ * A unit of work run against a CampusSystem by a CommandQueue
+ * Lets queued operations throw the system's checked exceptions
+ */
+@FunctionalInterface
+public interface CampusCommand<T> {
+    // Runs the command and returns its result
+    T run(CampusSystem campus) throws Exception;
+}
@@ -1,5 +1,6 @@
 import java.util.Scanner;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * User interface for Campus Resource Reservation System
@@ -14,6 +15,14 @@ public class CampusMenu {
     private String currentUser;
     // Flag indicating if current user has administrator privileges
     private boolean isAdmin;
+    // File the current system is journaled to and saved in the background
+    // (null when not autosaving), with the AutoSaver settings
+    private String autosaveFile;
+    private long autosaveChanges;
+    private long autosaveInterval;
+    private TimeUnit autosaveUnit;
+    // Background saver for the current system (null when not autosaving)
+    private AutoSaver autoSaver;
     
     // Constructor initializes with system reference
     public CampusMenu(CampusSystem campus) {
@@ -21,6 +30,47 @@ public class CampusMenu {
         this.scanner = new Scanner(System.in);
     }
     
+    // Returns the system the menu currently works on (changes when a file is loaded)
+    public synchronized CampusSystem getCampus() {
+        return campus;
+    }
+    
+    // Journals every change to a file and saves it in the background (see
+    // AutoSaver); a system loaded from the menu takes over the same file
+    public synchronized void startAutosave(String filename, long changeThreshold,
+                                           long interval, TimeUnit unit) {
+        autosaveFile = filename;
+        autosaveChanges = changeThreshold;
+        autosaveInterval = interval;
+        autosaveUnit = unit;
+        resumeAutosave();
+    }
+    
+    // Stops autosaving, saving any changes still waiting; safe to call more than once
+    public synchronized void stopAutosave() {
+        pauseAutosave();
+        autosaveFile = null;
+    }
+    
+    // Starts journaling and background saves for the current system
+    private synchronized void resumeAutosave() {
+        if (autosaveFile == null) return;
+        try {
+            campus.enableJournal(autosaveFile, false);
+        } catch (DataPersistenceException e) {
+            System.out.println("Could not start journal: " + e.getMessage());
+        }
+        autoSaver = new AutoSaver(campus, autosaveFile, autosaveChanges,
+                                  autosaveInterval, autosaveUnit);
+    }
+    
+    // Stops the background saves, saving any changes still waiting
+    private synchronized void pauseAutosave() {
+        if (autoSaver == null) return;
+        autoSaver.close();
+        autoSaver = null;
+    }
+    
     // Main entry point for the menu system
     public void run() {
         displayWelcomeBanner();
@@ -191,35 +241,16 @@ public class CampusMenu {
         System.out.println("=".repeat(50));
         
         try {
-            // Show all available resources first
-            campus.printAllResources();
+            // Pick the time first so only resources free then are offered
+            int day = promptForDay();
+            int slot = promptForSlot();
+            
+            List<CampusResource> freeResources = campus.findFreeResources(day, slot);
+            displaySearchResults(freeResources, "Free at selected time");
             
             System.out.print("\nEnter the Resource ID: ");
             String resourceId = scanner.nextLine().trim();
             
-            // Display day mapping (0-4 corresponds to Monday-Friday)
-            System.out.println("\nDays Available:");
-            System.out.println("  0 = Monday");
-            System.out.println("  1 = Tuesday");
-            System.out.println("  2 = Wednesday");
-            System.out.println("  3 = Thursday");
-            System.out.println("  4 = Friday");
-            System.out.print("Enter day number (0-4): ");
-            int day = getValidatedNumber(0, 4);
-            
-            // Display time slot options (8am-1am in 2-hour blocks)
-            System.out.println("\nTime Slots Available:");
-            System.out.println("  0: 8:00 AM - 10:00 AM");
-            System.out.println("  1: 10:00 AM - 12:00 PM");
-            System.out.println("  2: 1:00 PM - 3:00 PM");
-            System.out.println("  3: 3:00 PM - 5:00 PM");
-            System.out.println("  4: 5:00 PM - 7:00 PM");
-            System.out.println("  5: 7:00 PM - 9:00 PM");
-            System.out.println("  6: 9:00 PM - 11:00 PM");
-            System.out.println("  7: 11:00 PM - 1:00 AM");
-            System.out.print("Enter time slot (0-7): ");
-            int slot = getValidatedNumber(0, 7);
-            
             // Attempt to create reservation through main system
             Reservation reservation = campus.makeReservation(resourceId, currentUser, day, slot);
             
@@ -480,7 +511,9 @@ public class CampusMenu {
         System.out.println("4. Filter by Attributes");
         System.out.println("5. Show All-Day Availability Only");
         System.out.println("6. Show All Resources");
-        System.out.print("\nEnter choice (1-6): ");
+        System.out.println("7. Show Resources Free at a Specific Time");
+        System.out.println("8. Combined Search (name, type, attributes, time)");
+        System.out.print("\nEnter choice (1-8): ");
         
         String choice = scanner.nextLine().trim();
         
@@ -520,7 +553,9 @@ public class CampusMenu {
                     System.out.println("Filter Options:");
                     System.out.println("1. Study Rooms - Minimum Capacity");
                     System.out.println("2. Lab Equipment - Equipment Type");
-                    System.out.print("Enter choice (1-2): ");
+                    System.out.println("3. Study Rooms - Capacity Range");
+                    System.out.println("4. Study Rooms - Smallest Room for a Group");
+                    System.out.print("Enter choice (1-4): ");
                     
                     String filterChoice = scanner.nextLine().trim();
                     
@@ -536,6 +571,21 @@ public class CampusMenu {
                         String equipmentType = scanner.nextLine().trim();
                         List<LabEquipment> equipment = campus.filterLabEquipmentByType(equipmentType);
                         displayLabEquipment(equipment, "Lab Equipment - Type: " + equipmentType);
+                    } else if (filterChoice.equals("3")) {
+                        // Filter study rooms by capacity between two bounds
+                        System.out.print("Enter minimum capacity: ");
+                        int minCapacity = getValidatedNumber(1, 100);
+                        System.out.print("Enter maximum capacity: ");
+                        int maxCapacity = getValidatedNumber(minCapacity, 100);
+                        List<StudyRoom> rooms = campus.filterStudyRoomsByCapacityRange(minCapacity, maxCapacity);
+                        displayStudyRooms(rooms, "Study Rooms (Capacity " + minCapacity + "-" + maxCapacity + ")");
+                    } else if (filterChoice.equals("4")) {
+                        // Find the tightest-fitting room for a group
+                        System.out.print("Enter group size: ");
+                        int groupSize = getValidatedNumber(1, 100);
+                        StudyRoom room = campus.findSmallestRoomFor(groupSize);
+                        List<StudyRoom> rooms = (room == null) ? List.of() : List.of(room);
+                        displayStudyRooms(rooms, "Smallest Study Room for " + groupSize + " people");
                     }
                     break;
                     
@@ -549,6 +599,19 @@ public class CampusMenu {
                     campus.printAllResources();
                     break;
                     
+                case "7":
+                    // Show resources with no booking at the chosen day/time slot
+                    int day = promptForDay();
+                    int slot = promptForSlot();
+                    results = campus.findFreeResources(day, slot);
+                    displaySearchResults(results, "Free at day " + day + ", slot " + slot);
+                    break;
+                    
+                case "8":
+                    // Apply any combination of filters in a single query
+                    handleCombinedSearch();
+                    break;
+                    
                 default:
                     System.out.println("\nInvalid choice.");
             }
@@ -557,6 +620,43 @@ public class CampusMenu {
         }
     }
     
+    // Shared operation: Builds one query from several optional filters
+    private void handleCombinedSearch() throws InvalidTimeSlotException {
+        ResourceQuery query = campus.query();
+        
+        System.out.print("Name contains (or press Enter to skip): ");
+        query.nameContains(scanner.nextLine().trim());
+        
+        System.out.println("Type: 1. Study Room  2. Lab Equipment  (or press Enter for any)");
+        System.out.print("Enter type: ");
+        String typeChoice = scanner.nextLine().trim();
+        if (typeChoice.equals("1")) {
+            query.ofType(ResourceType.STUDY_ROOM);
+        } else if (typeChoice.equals("2")) {
+            query.ofType(ResourceType.LAB_EQUIPMENT);
+        }
+        
+        System.out.print("Minimum room capacity (or 0 to skip): ");
+        int minCapacity = getValidatedNumber(0, 100);
+        if (minCapacity > 0) query.minCapacity(minCapacity);
+        
+        System.out.print("Equipment type contains (or press Enter to skip): ");
+        query.equipmentType(scanner.nextLine().trim());
+        
+        System.out.print("Must be free at a specific time? (yes/no): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("yes")) {
+            int day = promptForDay();
+            int slot = promptForSlot();
+            query.freeAt(day, slot);
+        }
+        
+        System.out.print("Maximum results (or 0 for no limit): ");
+        int limit = getValidatedNumber(0, 1000);
+        if (limit > 0) query.limit(limit);
+        
+        displaySearchResults(query.list(), "Combined search");
+    }
+    
     // Shared operation: Shows schedule for specific resource
     private void handleViewResourceSchedule() {
         System.out.print("\nEnter Resource ID to view schedule: ");
@@ -583,12 +683,24 @@ public class CampusMenu {
         System.out.print("\nEnter filename to load from: ");
         String filename = scanner.nextLine().trim();
         
-        try {
-            CampusSystem loaded = CampusSystem.loadFromFile(filename);
-            this.campus = loaded;
-            System.out.println("System loaded successfully from: " + filename);
-        } catch (DataPersistenceException e) {
-            System.out.println("\nLoad failed: " + e.getMessage());
+        synchronized (this) {
+            // Save the current system first, so loading its own file sees
+            // every change made so far
+            pauseAutosave();
+            try {
+                CampusSystem loaded = CampusSystem.loadFromFile(filename);
+                // The replaced system must stop writing to its journal, which
+                // may belong to the file just loaded (it holds no unsaved changes)
+                campus.closeJournal();
+                this.campus = loaded;
+                System.out.println("System loaded successfully from: " + filename);
+            } catch (DataPersistenceException e) {
+                System.out.println("\nLoad failed: " + e.getMessage());
+            } finally {
+                // The loaded system (or the current one, if loading failed)
+                // is autosaved from here on
+                resumeAutosave();
+            }
         }
     }
     
@@ -608,6 +720,35 @@ public class CampusMenu {
         }
     }
     
+    // Helper method: Shows day options and reads a day index (0-4)
+    private int promptForDay() {
+        // Display day mapping (0-4 corresponds to Monday-Friday)
+        System.out.println("\nDays Available:");
+        System.out.println("  0 = Monday");
+        System.out.println("  1 = Tuesday");
+        System.out.println("  2 = Wednesday");
+        System.out.println("  3 = Thursday");
+        System.out.println("  4 = Friday");
+        System.out.print("Enter day number (0-4): ");
+        return getValidatedNumber(0, 4);
+    }
+    
+    // Helper method: Shows time slot options and reads a slot index (0-7)
+    private int promptForSlot() {
+        // Display time slot options (8am-1am in 2-hour blocks)
+        System.out.println("\nTime Slots Available:");
+        System.out.println("  0: 8:00 AM - 10:00 AM");
+        System.out.println("  1: 10:00 AM - 12:00 PM");
+        System.out.println("  2: 1:00 PM - 3:00 PM");
+        System.out.println("  3: 3:00 PM - 5:00 PM");
+        System.out.println("  4: 5:00 PM - 7:00 PM");
+        System.out.println("  5: 7:00 PM - 9:00 PM");
+        System.out.println("  6: 9:00 PM - 11:00 PM");
+        System.out.println("  7: 11:00 PM - 1:00 AM");
+        System.out.print("Enter time slot (0-7): ");
+        return getValidatedNumber(0, 7);
+    }
+    
     // Helper method: Gets validated number input within specified range
     private int getValidatedNumber(int min, int max) {
         while (true) {
@@ -5,6 +5,9 @@ import java.io.Serializable;
  * Defines common interface for StudyRoom and LabEquipment
  */
 public abstract class CampusResource implements Serializable {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = 5529263295619206304L;
+    
     // Unique identifier for the resource (e.g., SR101, LE201)
     protected String id;
     // Descriptive name of the resource
@@ -27,8 +30,13 @@ public abstract class CampusResource implements Serializable {
     }
     
     // Abstract method that concrete classes must implement
+    // Returns the type tag used to partition resources by kind
+    public abstract ResourceType getType();
+    
     // Returns the type of resource (e.g., "Study Room", "Lab Equipment")
-    public abstract String getResourceType();
+    public String getResourceType() { 
+        return getType().getDisplayName(); 
+    }
     
     // Abstract method that concrete classes must implement
     // Returns specific details relevant to the resource type
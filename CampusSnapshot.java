@@ -0,0 +1,74 @@
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Immutable view of the system's resources, users, reservations and
+ * schedules, shared by every reader until the next change to what the
+ * lists contain
+ * Each list is tagged with its own version, so a booking only replaces
+ * the reservation history and the other lists are carried over as they
+ * are. The reservations are copied when the snapshot is taken but only
+ * ordered into the history on first use, so readers of the other lists
+ * never pay for that.
+ */
+public class CampusSnapshot {
+    // Change counter values the lists reflect: resources and schedules
+    // (the catalogue), users, and reservations
+    private final long catalogVersion;
+    private final long userVersion;
+    private final long reservationVersion;
+    // Read-only lists captured when the snapshot was taken
+    private final List<CampusResource> resources;
+    private final List<ResourceSchedule> schedules;
+    private final List<User> users;
+    // Builds the reservation history from reservations copied when the
+    // snapshot was taken; dropped once it has run (guarded by this)
+    private Supplier<List<Reservation>> historyBuilder;
+    // Reservation history, built on first request (guarded by this)
+    private List<Reservation> reservations;
+
+    // Constructor takes read-only lists the caller will not change, and
+    // the builder for the reservation history
+    public CampusSnapshot(long catalogVersion, List<CampusResource> resources,
+                          List<ResourceSchedule> schedules, long userVersion, List<User> users,
+                          long reservationVersion, Supplier<List<Reservation>> historyBuilder) {
+        this.catalogVersion = catalogVersion;
+        this.resources = resources;
+        this.schedules = schedules;
+        this.userVersion = userVersion;
+        this.users = users;
+        this.reservationVersion = reservationVersion;
+        this.historyBuilder = historyBuilder;
+    }
+
+    // Returns the catalogue change counter value the resources and schedules reflect
+    public long getCatalogVersion() { return catalogVersion; }
+    // Returns the user change counter value the users reflect
+    public long getUserVersion() { return userVersion; }
+    // Returns the reservation change counter value the history reflects
+    public long getReservationVersion() { return reservationVersion; }
+    // Returns the resources in catalogue order
+    public List<CampusResource> getResources() { return resources; }
+    // Returns the registered users in registration order
+    public List<User> getUsers() { return users; }
+    // Returns the resource schedules
+    public List<ResourceSchedule> getSchedules() { return schedules; }
+
+    // Returns the full reservation history (live and archived) ordered by
+    // ID number, building it on the first call
+    public synchronized List<Reservation> getReservations() {
+        if (reservations == null) {
+            reservations = historyBuilder.get();
+            historyBuilder = null;
+        }
+        return reservations;
+    }
+
+    // Returns what gives this snapshot's reservation history: the history
+    // if built, otherwise its builder (lets a newer snapshot share it
+    // without building it)
+    public synchronized Supplier<List<Reservation>> getHistorySource() {
+        List<Reservation> built = reservations;
+        return built != null ? () -> built : historyBuilder;
+    }
+}
@@ -1,27 +1,141 @@
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Main system controller managing all resources, users, and reservations
  * Maintains transitive ownership between users and resource schedules
+ *
+ * Safe for concurrent use. Catalogue changes (add/edit/remove resource) take
+ * the catalogue write lock; bookings and cancellations take only the read
+ * lock and claim or release their slot with a compare-and-set on the
+ * resource's schedule, so racing bookings never wait for each other.
+ * Searches and filters read the catalogue optimistically without locking
+ * and retry under the read lock only if a catalogue change overlapped them.
+ *
+ * Once a journal is attached (see enableJournal), every change is also
+ * appended to a journal next to the save file and synced to disk before the
+ * call returns, so a crash loses nothing; loadFromFile replays it on startup
+ * (journaling then stays off until enableJournal is called again). A
+ * journal can instead be synced only by saves, so repeated saves write just
+ * the changes made in between; without a journal every save is a full one.
  */
 public class CampusSystem implements Serializable {
+    // Serialization IDs of all saved classes are pinned to the values Java
+    // computed for the first release, so adding fields or methods does not
+    // make earlier save files unreadable
+    private static final long serialVersionUID = 4067541184156472254L;
+    
     // List of all resources in the system
     private List<CampusResource> resources;
     // List of all registered users
     private List<User> users;
-    // List of all reservations (both active and cancelled)
+    // Live reservations as saved to file (active ones plus cancelled ones not
+    // yet archived); at runtime they are held in reservationsById instead
     private List<Reservation> reservations;
+    // Cancelled reservations moved out of the live set by compaction
+    private ReservationArchive archive;
+    // Cancelled reservations allowed to pile up in the live set before compaction
+    private volatile int compactionThreshold;
     // List of schedules tracking availability for each resource
     private List<ResourceSchedule> schedules;
+    // Last issued reservation number (RES-n), saved with the system
+    private AtomicLong reservationSequence;
+    // Last issued user number (USER-n), saved with the system
+    private AtomicLong userSequence;
+    // Identifies the journal kept with this system's save file (a new one is
+    // started by enableJournal); a journal of another generation is ignored
+    private long journalGeneration;
+    // Position of the last journal record the saved state includes; only
+    // later records are replayed on top of it
+    private long journalCheckpoint;
+    
+    // Lookup indexes over the lists above (rebuilt after loading, not saved)
+    // Resources keyed by resource ID
+    private transient Map<String, CampusResource> resourcesById;
+    // Users keyed by username
+    private transient Map<String, User> usersByName;
+    // Live reservations keyed by reservation ID
+    private transient Map<String, Reservation> reservationsById;
+    // Schedules keyed by the resource ID they track
+    private transient Map<String, ResourceSchedule> schedulesByResourceId;
+    // Active reservations of each user in booking order, keyed by username
+    private transient Map<String, Set<Reservation>> activeReservationsByUser;
+    // Resources by ordinal (bit position in the availability index);
+    // removed resources leave a null entry until the next rebuild
+    private transient List<CampusResource> resourcesByOrdinal;
+    // Ordinal assigned to each resource ID
+    private transient Map<String, Integer> ordinalsById;
+    // Resources free at each day/time slot of the week
+    private transient AvailabilityIndex availabilityIndex;
+    // Substring indexes over resource names and IDs
+    private transient TrigramIndex nameIndex;
+    private transient TrigramIndex idIndex;
+    // Study rooms grouped by capacity, smallest capacity first
+    private transient NavigableMap<Integer, Set<StudyRoom>> roomsByCapacity;
+    // Resources partitioned by type tag, each in catalogue order
+    private transient Map<ResourceType, List<CampusResource>> resourcesByType;
+    // Ordinals of the resources in each type partition
+    private transient Map<ResourceType, BitSet> ordinalsByType;
+    // Lab equipment grouped by normalized (trimmed, lower-case) equipment type
+    private transient NavigableMap<String, Set<LabEquipment>> equipmentByType;
+    // Cancelled reservations still sitting in the live set
+    private transient AtomicInteger pendingArchiveCount;
+    
+    // Guards the resource catalogue and its indexes
+    // (not reentrant: code holding it must not call methods that take it again)
+    private transient StampedLock catalogLock;
+    // Set to make catalogue reads always take the read lock instead of
+    // trying without it first (see readCatalog; used by CatalogReadBenchmark)
+    private transient volatile boolean lockedReads;
+    
+    // Bumped after every change to which resources and schedules, users or
+    // reservations exist; snapshot lists taken at an older value are rebuilt
+    private transient AtomicLong catalogVersion;
+    private transient AtomicLong userVersion;
+    private transient AtomicLong reservationVersion;
+    // Most recently published snapshot (null until first requested)
+    private transient volatile CampusSnapshot snapshot;
+    // Journal receiving every change (null = journaling off)
+    private transient volatile ReservationJournal journal;
+    // Save file the journal belongs to (written by checkpoint)
+    private transient volatile String journalFile;
+    // Whether each change is synced before the call making it returns
+    // (enableJournal), or changes are only synced by the next save
+    private transient volatile boolean journalSyncsChanges;
+    // Per thread, the last journal position whose sync was put off until
+    // syncDeferredJournal (unset = each change waits for its own sync)
+    private transient ThreadLocal<long[]> deferredJournalPosition;
+    
+    // Orders reservations by ID number, i.e. the order they were booked in
+    private static final Comparator<Reservation> BOOKING_ORDER = 
+        Comparator.comparingLong(Reservation::getSequence)
+                  .thenComparing(Reservation::getReservationId);
     
     // Constructor initializes empty collections and default data
     public CampusSystem() {
         resources = new ArrayList<>();
-        users = new ArrayList<>();
+        users = new CopyOnWriteArrayList<>();
         reservations = new ArrayList<>();
         schedules = new ArrayList<>();
+        reservationSequence = new AtomicLong(0);
+        userSequence = new AtomicLong(FIRST_USER_SEQUENCE);
+        archive = new ReservationArchive();
+        compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
         initializeDefaultData();
+        rebuildIndexes();
     }
     
     // Sets up initial sample data for testing and demonstration
@@ -42,9 +156,270 @@ public class CampusSystem implements Serializable {
         }
         
         // Add default users: one admin and two students
-        users.add(new Administrator("admin"));
-        users.add(new Student("student1"));
-        users.add(new Student("student2"));
+        users.add(new Administrator("admin", getNextUserId()));
+        users.add(new Student("student1", getNextUserId()));
+        users.add(new Student("student2", getNextUserId()));
+    }
+    
+    // Rebuilds all lookup indexes from the underlying lists
+    private void rebuildIndexes() {
+        catalogLock = new StampedLock();
+        catalogVersion = new AtomicLong();
+        userVersion = new AtomicLong();
+        reservationVersion = new AtomicLong();
+        snapshot = null;
+        deferredJournalPosition = new ThreadLocal<>();
+        
+        resourcesById = new ConcurrentHashMap<>();
+        for (CampusResource resource : resources) {
+            resourcesById.put(resource.getId(), resource);
+        }
+        users = new CopyOnWriteArrayList<>(users);
+        usersByName = new ConcurrentHashMap<>();
+        for (User user : users) {
+            usersByName.put(user.getUsername(), user);
+        }
+        reservationsById = new ConcurrentHashMap<>();
+        activeReservationsByUser = new ConcurrentHashMap<>();
+        pendingArchiveCount = new AtomicInteger();
+        for (Reservation reservation : reservations) {
+            reservationsById.put(reservation.getReservationId(), reservation);
+            if (reservation.isActive()) {
+                indexUserReservation(reservation);
+            } else {
+                pendingArchiveCount.incrementAndGet();
+            }
+        }
+        // The live set is now held by reservationsById (see writeObject)
+        reservations = null;
+        schedulesByResourceId = new ConcurrentHashMap<>();
+        for (ResourceSchedule schedule : schedules) {
+            schedule.rebuildOccupancy();
+            schedulesByResourceId.put(schedule.getResourceId(), schedule);
+        }
+        // Every resource needs a schedule before bookings can run against it
+        for (CampusResource resource : resources) {
+            if (!schedulesByResourceId.containsKey(resource.getId())) {
+                ResourceSchedule schedule = new ResourceSchedule(resource.getId());
+                schedules.add(schedule);
+                schedulesByResourceId.put(resource.getId(), schedule);
+            }
+        }
+        resourcesByOrdinal = new ArrayList<>();
+        ordinalsById = new HashMap<>();
+        availabilityIndex = new AvailabilityIndex();
+        nameIndex = new TrigramIndex();
+        idIndex = new TrigramIndex();
+        roomsByCapacity = new TreeMap<>();
+        equipmentByType = new TreeMap<>();
+        resourcesByType = new EnumMap<>(ResourceType.class);
+        ordinalsByType = new EnumMap<>(ResourceType.class);
+        for (ResourceType type : ResourceType.values()) {
+            // Copy-on-write so read-only views can be handed out safely
+            resourcesByType.put(type, new CopyOnWriteArrayList<>());
+            ordinalsByType.put(type, new BitSet());
+        }
+        for (CampusResource resource : resources) {
+            int ordinal = registerOrdinal(resource);
+            ResourceSchedule schedule = schedulesByResourceId.get(resource.getId());
+            if (schedule != null) {
+                for (Reservation reservation : schedule.getAllReservations()) {
+                    availabilityIndex.markReserved(ordinal, 
+                        reservation.getDayIndex(), reservation.getSlotIndex());
+                }
+            }
+        }
+    }
+    
+    // Assigns the next ordinal to a resource and marks it free all week
+    private int registerOrdinal(CampusResource resource) {
+        int ordinal = resourcesByOrdinal.size();
+        resourcesByOrdinal.add(resource);
+        ordinalsById.put(resource.getId(), ordinal);
+        availabilityIndex.addResource(ordinal);
+        nameIndex.put(ordinal, resource.getName());
+        idIndex.put(ordinal, resource.getId());
+        resourcesByType.get(resource.getType()).add(resource);
+        ordinalsByType.get(resource.getType()).set(ordinal);
+        if (resource instanceof StudyRoom) {
+            indexRoomCapacity((StudyRoom) resource);
+        } else if (resource instanceof LabEquipment) {
+            indexEquipmentType((LabEquipment) resource);
+        }
+        return ordinal;
+    }
+    
+    // Releases a resource's ordinal and drops it from the availability index
+    private void unregisterOrdinal(String resourceId) {
+        Integer ordinal = ordinalsById.remove(resourceId);
+        if (ordinal != null) {
+            CampusResource resource = resourcesByOrdinal.get(ordinal);
+            resourcesByType.get(resource.getType()).remove(resource);
+            ordinalsByType.get(resource.getType()).clear(ordinal);
+            if (resource instanceof StudyRoom) {
+                unindexRoomCapacity((StudyRoom) resource);
+            } else if (resource instanceof LabEquipment) {
+                unindexEquipmentType((LabEquipment) resource);
+            }
+            resourcesByOrdinal.set(ordinal, null);
+            availabilityIndex.removeResource(ordinal);
+            nameIndex.remove(ordinal);
+            idIndex.remove(ordinal);
+        }
+    }
+    
+    // Adds a study room under its current capacity
+    private void indexRoomCapacity(StudyRoom room) {
+        roomsByCapacity.computeIfAbsent(room.getCapacity(), k -> new LinkedHashSet<>()).add(room);
+    }
+    
+    // Removes a study room from under its current capacity
+    private void unindexRoomCapacity(StudyRoom room) {
+        Set<StudyRoom> rooms = roomsByCapacity.get(room.getCapacity());
+        if (rooms != null) {
+            rooms.remove(room);
+            if (rooms.isEmpty()) roomsByCapacity.remove(room.getCapacity());
+        }
+    }
+    
+    // Normalizes an equipment type into its index key
+    private static String equipmentTypeKey(String equipmentType) {
+        return equipmentType == null ? "" : equipmentType.trim().toLowerCase();
+    }
+    
+    // Adds lab equipment under its current equipment type
+    private void indexEquipmentType(LabEquipment equipment) {
+        equipmentByType.computeIfAbsent(equipmentTypeKey(equipment.getEquipmentType()), 
+                                        k -> new LinkedHashSet<>()).add(equipment);
+    }
+    
+    // Removes lab equipment from under its current equipment type
+    private void unindexEquipmentType(LabEquipment equipment) {
+        String key = equipmentTypeKey(equipment.getEquipmentType());
+        Set<LabEquipment> items = equipmentByType.get(key);
+        if (items != null) {
+            items.remove(equipment);
+            if (items.isEmpty()) equipmentByType.remove(key);
+        }
+    }
+    
+    // Re-indexes a resource's name after it has been changed
+    private void reindexName(CampusResource resource) {
+        nameIndex.put(ordinalsById.get(resource.getId()), resource.getName());
+    }
+    
+    // Brings a slot's availability bit in line with the schedule. Rechecks the
+    // schedule after writing: a thread that changes the slot meanwhile also
+    // runs this, so the last write always reflects the latest booking state
+    private void syncAvailability(int ordinal, ResourceSchedule schedule, int day, int slot) {
+        boolean reserved;
+        do {
+            reserved = schedule.hasReservationAt(day, slot);
+            if (reserved) {
+                availabilityIndex.markReserved(ordinal, day, slot);
+            } else {
+                availabilityIndex.markFree(ordinal, day, slot);
+            }
+        } while (reserved != schedule.hasReservationAt(day, slot));
+    }
+    
+    // Returns the saved parts of the system, with the live reservations (in
+    // booking order) as the saved list. The live set and the archive are
+    // copied together under the archive lock, so compaction running alongside
+    // a checkpoint cannot leave a reservation in both or neither; nothing is
+    // assigned to this object's own fields, so bookings can carry on meanwhile
+    private SaveFileCodec.Contents savedContents() {
+        List<Reservation> live;
+        ReservationArchive archived;
+        synchronized (archive) {
+            live = new ArrayList<>(reservationsById.values());
+            archived = archive.copy();
+        }
+        live.sort(BOOKING_ORDER);
+        // Users can register during a checkpoint, so the list is copied once
+        // (the catalogue lists only change under the write lock)
+        return new SaveFileCodec.Contents(resources, new ArrayList<>(users), live, archived,
+                                          schedules, compactionThreshold, reservationSequence,
+                                          userSequence, journalGeneration, journalCheckpoint);
+    }
+    
+    // Restores a system from the saved parts read from a binary save file
+    // (loadFromFile rebuilds the indexes)
+    private CampusSystem(SaveFileCodec.Contents saved) {
+        resources = saved.resources;
+        users = saved.users;
+        reservations = saved.reservations;
+        archive = saved.archive;
+        compactionThreshold = saved.compactionThreshold;
+        schedules = saved.schedules;
+        reservationSequence = saved.reservationSequence;
+        userSequence = saved.userSequence;
+        journalGeneration = saved.journalGeneration;
+        journalCheckpoint = saved.journalCheckpoint;
+    }
+    
+    // Writes the saved fields as returned by savedContents
+    // (every field listed here must also be listed in PutField order below)
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        SaveFileCodec.Contents saved = savedContents();
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("resources", saved.resources);
+        fields.put("users", saved.users);
+        fields.put("reservations", saved.reservations);
+        fields.put("archive", saved.archive);
+        fields.put("compactionThreshold", saved.compactionThreshold);
+        fields.put("schedules", saved.schedules);
+        fields.put("reservationSequence", saved.reservationSequence);
+        fields.put("userSequence", saved.userSequence);
+        fields.put("journalGeneration", saved.journalGeneration);
+        fields.put("journalCheckpoint", saved.journalCheckpoint);
+        out.writeFields();
+    }
+    
+    // Collects the resources for a set of ordinals in ordinal order
+    private List<CampusResource> resourcesForOrdinals(BitSet ordinals) {
+        return resourcesForOrdinals(ordinals, -1);
+    }
+    
+    // Collects at most limit resources (-1 = all) for a set of ordinals in
+    // ordinal order, stopping as soon as the limit is reached
+    private List<CampusResource> resourcesForOrdinals(BitSet ordinals, long limit) {
+        List<CampusResource> results = new ArrayList<>();
+        for (int i = ordinals.nextSetBit(0); i >= 0 && results.size() != limit;
+                i = ordinals.nextSetBit(i + 1)) {
+            CampusResource resource = resourcesByOrdinal.get(i);
+            if (resource != null) results.add(resource);
+        }
+        return results;
+    }
+    
+    // Runs a catalogue read without locking, then checks no catalogue change
+    // overlapped it; if one did, the result may be torn (or the read may have
+    // thrown), so it is run again under the read lock. Readers must not change
+    // shared state, since they may run more than once
+    private <T> T readCatalog(Supplier<T> reader) {
+        long stamp = lockedReads ? 0 : catalogLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (catalogLock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                // A failure on a consistent view is genuine, not a torn read
+                if (catalogLock.validate(stamp)) throw e;
+            }
+        }
+        stamp = catalogLock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            catalogLock.unlockRead(stamp);
+        }
+    }
+    
+    // Makes catalogue reads always take the read lock (true) or try without
+    // it first (false, the default); for comparing the two
+    void setLockedReads(boolean lockedReads) {
+        this.lockedReads = lockedReads;
     }
     
     // ========== VALIDATION METHODS ==========
@@ -79,74 +454,91 @@ public class CampusSystem implements Serializable {
         }
     }
     
-    // Generates next unique reservation ID based on existing reservations
+    // Generates next unique reservation ID from the persistent sequence
     private String getNextReservationId() {
-        int maxId = 0;
+        return "RES-" + reservationSequence.incrementAndGet();
+    }
+    
+    // User numbers start after this value (the first user is USER-1001)
+    private static final long FIRST_USER_SEQUENCE = 1000;
+    
+    // Generates next user ID from the system's own sequence (thread-safe)
+    private String getNextUserId() {
+        return "USER-" + userSequence.incrementAndGet();
+    }
+    
+    // Restores the user sequence for files saved before it existed
+    private void recoverUserSequence() {
+        if (userSequence != null) return;
+        long maxId = FIRST_USER_SEQUENCE;
+        for (User user : users) {
+            // Non-numeric or malformed IDs give -1 and are skipped
+            maxId = Math.max(maxId, User.sequenceOf(user.getUserId()));
+        }
+        userSequence = new AtomicLong(maxId);
+    }
+    
+    // Restores the reservation sequence for files saved before it existed
+    private void recoverReservationSequence() {
+        if (reservationSequence != null || reservations == null) return;
+        long maxId = 0;
         for (Reservation r : reservations) {
-            String id = r.getReservationId();
-            if (id.startsWith("RES-")) {
-                try {
-                    // Extract numeric portion of ID
-                    int num = Integer.parseInt(id.substring(4));
-                    if (num > maxId) maxId = num;
-                } catch (NumberFormatException e) {
-                    // Skip non-numeric IDs or malformed IDs
-                }
-            }
+            // Non-numeric or malformed IDs give -1 and are skipped
+            maxId = Math.max(maxId, Reservation.sequenceOf(r.getReservationId()));
         }
-        return "RES-" + (maxId + 1);
+        reservationSequence = new AtomicLong(maxId);
+    }
+    
+    // Adds the archive tier to files saved before it existed
+    private void recoverArchive() {
+        if (archive == null) archive = new ReservationArchive();
+        if (compactionThreshold <= 0) compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
     }
     
     // ========== SEARCH & FIND METHODS ==========
     
     // Finds resource by its unique ID, returns null if not found
     public CampusResource findResource(String resourceId) {
-        for (CampusResource resource : resources) {
-            if (resource.getId().equals(resourceId)) {
-                return resource;
-            }
-        }
-        return null;
+        return resourceId == null ? null : resourcesById.get(resourceId);
     }
     
     // Finds user by username, returns null if not found
     public User findUser(String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return user;
-            }
-        }
-        return null;
+        return username == null ? null : usersByName.get(username);
     }
     
     // Finds reservation by its unique ID, returns null if not found
     public Reservation findReservation(String reservationId) {
-        for (Reservation reservation : reservations) {
-            if (reservation.getReservationId().equals(reservationId)) {
-                return reservation;
-            }
+        if (reservationId == null) return null;
+        Reservation reservation = reservationsById.get(reservationId);
+        if (reservation == null && archive.contains(reservationId)) {
+            // Only archived (cancelled) reservations reach the archive scan
+            reservation = archive.find(reservationId);
         }
-        return null;
+        return reservation;
     }
     
     // Gets the schedule for a specific resource by ID
     public ResourceSchedule getSchedule(String resourceId) {
-        for (ResourceSchedule schedule : schedules) {
-            if (schedule.getResourceId().equals(resourceId)) {
-                return schedule;
-            }
-        }
-        return null;
+        return resourceId == null ? null : schedulesByResourceId.get(resourceId);
     }
     
-    // Gets existing schedule or creates new one if resource has no schedule yet
-    private ResourceSchedule getOrCreateSchedule(String resourceId) {
-        ResourceSchedule schedule = getSchedule(resourceId);
-        if (schedule == null) {
-            schedule = new ResourceSchedule(resourceId);
-            schedules.add(schedule);
+    // Adds an active reservation to its owner's reservation index
+    private void indexUserReservation(Reservation reservation) {
+        activeReservationsByUser
+            .computeIfAbsent(reservation.getUsername(), 
+                             k -> new ConcurrentSkipListSet<>(BOOKING_ORDER))
+            .add(reservation);
+    }
+    
+    // Removes a reservation from its owner's reservation index
+    // (empty sets are kept so a concurrent booking never adds to a discarded set)
+    private void unindexUserReservation(Reservation reservation) {
+        Set<Reservation> userReservations = 
+            activeReservationsByUser.get(reservation.getUsername());
+        if (userReservations != null) {
+            userReservations.remove(reservation);
         }
-        return schedule;
     }
     
     // ========== USER MANAGEMENT ==========
@@ -169,8 +561,26 @@ public class CampusSystem implements Serializable {
         }
         
         // Create appropriate user type based on isAdmin flag
-        User newUser = isAdmin ? new Administrator(username) : new Student(username);
-        users.add(newUser);
+        String userId = getNextUserId();
+        User newUser = isAdmin ? new Administrator(username, userId) : new Student(username, userId);
+        long logged;
+        // Read lock keeps a save from running between the change and its journal record
+        long stamp = catalogLock.readLock();
+        try {
+            // Claim the username atomically in case another thread is registering it
+            if (usersByName.putIfAbsent(username, newUser) != null) {
+                throw new DuplicateUserException("Username '" + username + "' already exists.");
+            }
+            // Journal in list order, so replay registers users in the same order
+            synchronized (users) {
+                users.add(newUser);
+                logged = journalChange(JournalRecord.addUser(newUser));
+            }
+            userVersion.incrementAndGet();
+        } finally {
+            catalogLock.unlockRead(stamp);
+        }
+        awaitJournal(logged);
         return newUser;
     }
     
@@ -198,18 +608,35 @@ public class CampusSystem implements Serializable {
         
         validateResourceId(resource.getId());
         
-        // Check for duplicate resource ID
-        if (findResource(resource.getId()) != null) {
-            throw new DuplicateResourceException(
-                "Resource ID '" + resource.getId() + "' already exists.");
+        long logged;
+        long stamp = catalogLock.writeLock();
+        try {
+            // Check for duplicate resource ID
+            if (findResource(resource.getId()) != null) {
+                throw new DuplicateResourceException(
+                    "Resource ID '" + resource.getId() + "' already exists.");
+            }
+            
+            registerResource(resource);
+            logged = journalChange(JournalRecord.addResource(resource));
+        } finally {
+            catalogLock.unlockWrite(stamp);
         }
-        
-        // Add resource and create corresponding schedule
-        resources.add(resource);
-        schedules.add(new ResourceSchedule(resource.getId()));
+        awaitJournal(logged);
         return resource;
     }
     
+    // Adds a resource and creates its schedule (caller holds the catalogue write lock)
+    private void registerResource(CampusResource resource) {
+        ResourceSchedule schedule = new ResourceSchedule(resource.getId());
+        resources.add(resource);
+        schedules.add(schedule);
+        resourcesById.put(resource.getId(), resource);
+        schedulesByResourceId.put(resource.getId(), schedule);
+        registerOrdinal(resource);
+        catalogVersion.incrementAndGet();
+    }
+    
     // Edits basic resource properties (name only)
     public boolean editResource(String resourceId, String newName, String username) 
         throws UnauthorizedAccessException, ResourceNotFoundException, InvalidInputException {
@@ -221,16 +648,24 @@ public class CampusSystem implements Serializable {
         
         validateResourceId(resourceId);
         
-        CampusResource resource = findResource(resourceId);
-        if (resource == null) {
-            throw new ResourceNotFoundException("Resource not found: " + resourceId);
-        }
-        
-        // Update name if provided and not empty
-        if (newName != null && !newName.trim().isEmpty()) {
-            resource.setName(newName.trim());
+        long logged;
+        long stamp = catalogLock.writeLock();
+        try {
+            CampusResource resource = findResource(resourceId);
+            if (resource == null) {
+                throw new ResourceNotFoundException("Resource not found: " + resourceId);
+            }
+            
+            // Update name if provided and not empty
+            if (newName != null && !newName.trim().isEmpty()) {
+                resource.setName(newName.trim());
+                reindexName(resource);
+            }
+            logged = journalChange(JournalRecord.editResource(resourceId, newName, null, null));
+        } finally {
+            catalogLock.unlockWrite(stamp);
         }
-        
+        awaitJournal(logged);
         return true;
     }
     
@@ -246,6 +681,22 @@ public class CampusSystem implements Serializable {
         
         validateResourceId(roomId);
         
+        long logged;
+        long stamp = catalogLock.writeLock();
+        try {
+            applyStudyRoomEdit(roomId, newName, newCapacity);
+            logged = journalChange(JournalRecord.editResource(roomId, newName, newCapacity, null));
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+        awaitJournal(logged);
+        return true;
+    }
+    
+    // Applies a study room edit (caller holds the catalogue write lock)
+    private boolean applyStudyRoomEdit(String roomId, String newName, Integer newCapacity)
+        throws ResourceNotFoundException, InvalidInputException {
+        
         CampusResource resource = findResource(roomId);
         if (resource == null) {
             throw new ResourceNotFoundException("Resource not found: " + roomId);
@@ -262,10 +713,17 @@ public class CampusSystem implements Serializable {
             // Update name if provided
             if (newName != null && !newName.trim().isEmpty()) {
                 room.setName(newName.trim());
+                reindexName(room);
             }
             // Update capacity if provided and valid
             if (newCapacity != null && newCapacity > 0) {
-                room.setCapacity(newCapacity);
+                // Capacity is the index key, so move the room within the index
+                unindexRoomCapacity(room);
+                try {
+                    room.setCapacity(newCapacity);
+                } finally {
+                    indexRoomCapacity(room);
+                }
             }
         } catch (IllegalArgumentException e) {
             throw new InvalidInputException("Invalid value: " + e.getMessage());
@@ -286,6 +744,22 @@ public class CampusSystem implements Serializable {
         
         validateResourceId(equipId);
         
+        long logged;
+        long stamp = catalogLock.writeLock();
+        try {
+            applyLabEquipmentEdit(equipId, newName, newType);
+            logged = journalChange(JournalRecord.editResource(equipId, newName, null, newType));
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+        awaitJournal(logged);
+        return true;
+    }
+    
+    // Applies a lab equipment edit (caller holds the catalogue write lock)
+    private boolean applyLabEquipmentEdit(String equipId, String newName, String newType)
+        throws ResourceNotFoundException, InvalidInputException {
+        
         CampusResource resource = findResource(equipId);
         if (resource == null) {
             throw new ResourceNotFoundException("Resource not found: " + equipId);
@@ -302,10 +776,17 @@ public class CampusSystem implements Serializable {
             // Update name if provided
             if (newName != null && !newName.trim().isEmpty()) {
                 equipment.setName(newName.trim());
+                reindexName(equipment);
             }
             // Update equipment type if provided
             if (newType != null && !newType.trim().isEmpty()) {
-                equipment.setEquipmentType(newType.trim());
+                // Equipment type is the index key, so move the item within the index
+                unindexEquipmentType(equipment);
+                try {
+                    equipment.setEquipmentType(newType.trim());
+                } finally {
+                    indexEquipmentType(equipment);
+                }
             }
         } catch (IllegalArgumentException e) {
             throw new InvalidInputException("Invalid value: " + e.getMessage());
@@ -325,35 +806,46 @@ public class CampusSystem implements Serializable {
         
         validateResourceId(resourceId);
         
-        CampusResource resource = findResource(resourceId);
-        if (resource == null) {
-            throw new ResourceNotFoundException("Resource not found: " + resourceId);
-        }
-        
-        // Prevent removal if resource has active reservations
-        if (hasActiveReservations(resourceId)) {
-            throw new InvalidInputException(
-                "Cannot remove resource '" + resource.getName() + 
-                "'. It has active reservations. Cancel them first.");
+        // The write lock also keeps bookings out while the schedule is checked
+        long logged;
+        long stamp = catalogLock.writeLock();
+        try {
+            CampusResource resource = findResource(resourceId);
+            if (resource == null) {
+                throw new ResourceNotFoundException("Resource not found: " + resourceId);
+            }
+            
+            // Prevent removal if resource has active reservations
+            if (hasActiveReservations(resourceId)) {
+                throw new InvalidInputException(
+                    "Cannot remove resource '" + resource.getName() + 
+                    "'. It has active reservations. Cancel them first.");
+            }
+            
+            unregisterResource(resource);
+            logged = journalChange(JournalRecord.removeResource(resourceId));
+        } finally {
+            catalogLock.unlockWrite(stamp);
         }
-        
-        // Remove resource and its schedule
+        awaitJournal(logged);
+        return true;
+    }
+    
+    // Removes a resource and its schedule (caller holds the catalogue write lock)
+    private void unregisterResource(CampusResource resource) {
+        String resourceId = resource.getId();
         resources.remove(resource);
-        ResourceSchedule schedule = getSchedule(resourceId);
+        resourcesById.remove(resourceId);
+        unregisterOrdinal(resourceId);
+        ResourceSchedule schedule = schedulesByResourceId.remove(resourceId);
         if (schedule != null) schedules.remove(schedule);
-        
-        return true;
+        catalogVersion.incrementAndGet();
     }
     
     // Checks if resource has any active (non-cancelled) reservations
     private boolean hasActiveReservations(String resourceId) {
-        for (Reservation reservation : reservations) {
-            if (reservation.getResourceId().equals(resourceId) && 
-                reservation.isActive()) {
-                return true;
-            }
-        }
-        return false;
+        ResourceSchedule schedule = getSchedule(resourceId);
+        return schedule != null && schedule.hasActiveReservations();
     }
     
     // ========== RESERVATION MANAGEMENT ==========
@@ -362,8 +854,7 @@ public class CampusSystem implements Serializable {
     public Reservation makeReservation(String resourceId, String username,
                                       int dayIndex, int slotIndex)
         throws InvalidTimeSlotException, ResourceNotFoundException,
-               ReservationConflictException, InvalidInputException,
-               DuplicateReservationException {
+               ReservationConflictException, InvalidInputException {
         
         // Validate all inputs
         validateUsername(username);
@@ -371,53 +862,197 @@ public class CampusSystem implements Serializable {
         validateDayIndex(dayIndex);
         validateSlotIndex(slotIndex);
         
-        // Auto-create user if they don't exist yet
-        if (findUser(username) == null) {
-            try { 
-                boolean isAdmin = username.equalsIgnoreCase("admin") || 
-                                username.equalsIgnoreCase("administrator");
-                addUser(username, isAdmin); // Will create the user
+        ensureUser(username);
+        
+        Reservation reservation;
+        long logged;
+        // Catalogue read lock keeps the resource from being removed meanwhile
+        long stamp = catalogLock.readLock();
+        try {
+            // Verify resource exists
+            CampusResource resource = findResource(resourceId);
+            if (resource == null) {
+                throw new ResourceNotFoundException("Resource '" + resourceId + "' not found.");
             }
-            catch (DuplicateUserException e) {
-                // Should never happen since we just checked
-            } catch (InvalidInputException e) {
-                throw new InvalidInputException("Invalid username for reservation: " + e.getMessage());
+            
+            ResourceSchedule schedule = getSchedule(resourceId);
+            
+            // Cheap early exit before an ID is drawn for a slot that is clearly taken
+            if (schedule.hasReservationAt(dayIndex, slotIndex)) {
+                throw new ReservationConflictException(
+                    "Time slot already reserved for " + resource.getName());
+            }
+            
+            // Generate unique reservation ID (sequence never reissues a number)
+            String reservationId = getNextReservationId();
+            
+            // Create reservation object
+            reservation = new Reservation(reservationId, resource, 
+                                          username, dayIndex, slotIndex);
+            
+            // Claim the slot: conflict check and insert in one atomic step
+            // (a thread losing the race here leaves a gap in the ID sequence)
+            if (!schedule.claim(dayIndex, slotIndex, reservation)) {
+                throw new ReservationConflictException(
+                    "Time slot already reserved for " + resource.getName());
             }
+            // Journaled before it can be found, so its cancellation is always journaled after it
+            logged = journalChange(JournalRecord.reserve(reservation));
+            publishReservation(reservation, schedule);
+            reservationVersion.incrementAndGet();
+        } finally {
+            catalogLock.unlockRead(stamp);
         }
+        awaitJournal(logged);
+        return reservation;
+    }
+    
+    // Makes a reservation whose slot has been claimed visible to lookups
+    private void publishReservation(Reservation reservation, ResourceSchedule schedule) {
+        syncAvailability(ordinalsById.get(reservation.getResourceId()), schedule,
+                         reservation.getDayIndex(), reservation.getSlotIndex());
+        reservationsById.put(reservation.getReservationId(), reservation);
+        indexUserReservation(reservation);
+    }
+    
+    // Books a batch of (resource, day, slot) items for one user, all or nothing.
+    // Every item is checked before anything is booked; if any item fails, nothing
+    // is booked and each result says why. IDs are drawn as one block
+    public List<ReservationResult> makeReservations(String username, 
+                                                    List<ReservationRequest> requests)
+        throws InvalidInputException {
         
-        // Verify resource exists
-        CampusResource resource = findResource(resourceId);
-        if (resource == null) {
-            throw new ResourceNotFoundException("Resource '" + resourceId + "' not found.");
+        validateUsername(username);
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidInputException("Batch must contain at least one reservation.");
         }
+        ensureUser(username);
         
-        // Get or create schedule for this resource
-        ResourceSchedule schedule = getOrCreateSchedule(resourceId);
+        int count = requests.size();
+        String[] errors = new String[count];
+        CampusResource[] batchResources = new CampusResource[count];
+        boolean failed = false;
         
-        // Check for time slot conflict
-        if (schedule.hasReservationAt(dayIndex, slotIndex)) {
-            throw new ReservationConflictException(
-                "Time slot already reserved for " + resource.getName());
+        List<ReservationResult> results = new ArrayList<>(count);
+        long logged = 0;
+        long stamp = catalogLock.readLock();
+        try {
+            // Check every item up front: inputs, resource, duplicates, conflicts
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                errors[i] = checkBatchItem(requests.get(i), seen, batchResources, i);
+                failed |= errors[i] != null;
+            }
+            
+            Reservation[] booked = new Reservation[count];
+            if (!failed) {
+                // One sequence step for the whole batch; IDs are start+1 .. start+count
+                long start = reservationSequence.getAndAdd(count);
+                for (int i = 0; i < count && !failed; i++) {
+                    ReservationRequest request = requests.get(i);
+                    Reservation reservation = new Reservation("RES-" + (start + i + 1), 
+                        batchResources[i], username, request.getDayIndex(), request.getSlotIndex());
+                    if (getSchedule(request.getResourceId())
+                            .claim(request.getDayIndex(), request.getSlotIndex(), reservation)) {
+                        booked[i] = reservation;
+                    } else {
+                        // Lost a race since the up-front check
+                        errors[i] = "Time slot already reserved for " + batchResources[i].getName();
+                        failed = true;
+                    }
+                }
+                if (failed) {
+                    rollBackBatch(booked);
+                } else {
+                    logged = commitBatch(booked);
+                }
+            }
+            
+            for (int i = 0; i < count; i++) {
+                if (failed) {
+                    String error = errors[i] != null ? errors[i] 
+                                 : "Not booked: another reservation in the batch failed.";
+                    results.add(new ReservationResult(requests.get(i), null, error));
+                } else {
+                    results.add(new ReservationResult(requests.get(i), booked[i], null));
+                }
+            }
+        } finally {
+            catalogLock.unlockRead(stamp);
         }
-        
-        // Generate unique reservation ID
-        String reservationId = getNextReservationId();
-        
-        // Double-check generated ID doesn't already exist
-        if (findReservation(reservationId) != null) {
-            throw new DuplicateReservationException(
-                "Generated reservation ID '" + reservationId + "' already exists.");
+        awaitJournal(logged);
+        return results;
+    }
+    
+    // Checks one batch item, recording its resource; returns why it cannot be
+    // booked, or null if it can (caller holds the catalogue read lock)
+    private String checkBatchItem(ReservationRequest request, Set<String> seen,
+                                  CampusResource[] batchResources, int index) {
+        if (request == null) {
+            return "Reservation request cannot be empty.";
+        }
+        try {
+            validateResourceId(request.getResourceId());
+            validateDayIndex(request.getDayIndex());
+            validateSlotIndex(request.getSlotIndex());
+        } catch (InvalidInputException | InvalidTimeSlotException e) {
+            return e.getMessage();
+        }
+        CampusResource resource = findResource(request.getResourceId());
+        if (resource == null) {
+            return "Resource '" + request.getResourceId() + "' not found.";
+        }
+        batchResources[index] = resource;
+        if (!seen.add(request.getResourceId() + "/" + request.getDayIndex() + "/" 
+                      + request.getSlotIndex())) {
+            return "Same time slot requested twice in this batch.";
+        }
+        if (getSchedule(request.getResourceId())
+                .hasReservationAt(request.getDayIndex(), request.getSlotIndex())) {
+            return "Time slot already reserved for " + resource.getName();
+        }
+        return null;
+    }
+    
+    // Releases slots claimed by a batch that could not complete
+    private void rollBackBatch(Reservation[] claimed) {
+        for (Reservation reservation : claimed) {
+            if (reservation == null) continue;
+            reservation.cancel();
+            ResourceSchedule schedule = getSchedule(reservation.getResourceId());
+            schedule.release(reservation.getDayIndex(), reservation.getSlotIndex(), reservation);
+            syncAvailability(ordinalsById.get(reservation.getResourceId()), schedule,
+                             reservation.getDayIndex(), reservation.getSlotIndex());
+        }
+    }
+    
+    // Journals and publishes the reservations of a fully claimed batch;
+    // returns the journal position of the last one
+    private long commitBatch(Reservation[] booked) {
+        long logged = 0;
+        for (Reservation reservation : booked) {
+            logged = journalChange(JournalRecord.reserve(reservation));
+        }
+        for (Reservation reservation : booked) {
+            publishReservation(reservation, getSchedule(reservation.getResourceId()));
+        }
+        reservationVersion.incrementAndGet();
+        return logged;
+    }
+    
+    // Registers a user on their first reservation
+    private void ensureUser(String username) throws InvalidInputException {
+        if (findUser(username) != null) return;
+        try { 
+            boolean isAdmin = username.equalsIgnoreCase("admin") || 
+                            username.equalsIgnoreCase("administrator");
+            addUser(username, isAdmin); // Will create the user
+        }
+        catch (DuplicateUserException e) {
+            // Another thread registered the same user first
+        } catch (InvalidInputException e) {
+            throw new InvalidInputException("Invalid username for reservation: " + e.getMessage());
         }
-        
-        // Create reservation object
-        Reservation reservation = new Reservation(reservationId, resource, 
-                                                 username, dayIndex, slotIndex);
-        
-        // Add to schedule and reservation list
-        schedule.addReservation(dayIndex, slotIndex, reservation);
-        reservations.add(reservation);
-        
-        return reservation;
     }
     
     // Cancels existing reservation with permission checking
@@ -445,16 +1080,132 @@ public class CampusSystem implements Serializable {
                 "You can only cancel your own reservations.");
         }
         
-        // Remove from schedule and mark as cancelled
+        long logged;
+        boolean released;
+        long stamp = catalogLock.readLock();
+        try {
+            // Already cancelled: its slot may have been rebooked, so leave the schedule alone
+            if (!reservation.isActive()) {
+                return reservation;
+            }
+            
+            // Journaled before the slot is freed, so a rebooking of the slot is
+            // always journaled after it (replaying a repeated cancel does nothing)
+            logged = journalChange(JournalRecord.cancel(reservationId));
+            released = releaseReservation(reservation);
+        } finally {
+            catalogLock.unlockRead(stamp);
+        }
+        awaitJournal(logged);
+        
+        // Archive cancelled reservations once enough have piled up (if a
+        // concurrent cancel got there first, that call counts it instead)
+        if (released && pendingArchiveCount.incrementAndGet() >= compactionThreshold) {
+            compactReservations();
+        }
+        
+        return reservation;
+    }
+    
+    // Frees an active reservation's slot and marks it cancelled; returns false
+    // if its slot no longer holds it, i.e. a concurrent cancel got there first
+    private boolean releaseReservation(Reservation reservation) {
+        // Release the slot only if it still holds this reservation
         ResourceSchedule schedule = getSchedule(reservation.getResourceId());
+        int day = reservation.getDayIndex();
+        int slot = reservation.getSlotIndex();
         if (schedule != null) {
-            schedule.removeReservation(reservation.getDayIndex(), 
-                                     reservation.getSlotIndex());
+            if (!schedule.release(day, slot, reservation)) {
+                return false;
+            }
+            Integer ordinal = ordinalsById.get(reservation.getResourceId());
+            if (ordinal != null) {
+                syncAvailability(ordinal, schedule, day, slot);
+            }
         }
         
         reservation.cancel();
-        
-        return reservation;
+        unindexUserReservation(reservation);
+        return true;
+    }
+    
+    // ========== ARCHIVAL ==========
+    
+    // Default number of cancelled reservations collected before compaction
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 100;
+    
+    // Moves cancelled reservations from the live set into the archive
+    // (a reservation is added to the archive before it leaves the live set,
+    // so lookups running alongside always find it in one or the other)
+    public int compactReservations() {
+        // Read lock keeps compaction from running while the system is saved
+        long stamp = catalogLock.readLock();
+        try {
+            return archiveCancelled();
+        } finally {
+            catalogLock.unlockRead(stamp);
+        }
+    }
+    
+    // Archives every cancelled reservation in the live set
+    private int archiveCancelled() {
+        synchronized (archive) {
+            List<Reservation> cancelled = new ArrayList<>();
+            for (Reservation reservation : reservationsById.values()) {
+                if (!reservation.isActive() && ReservationArchive.canArchive(reservation)) {
+                    cancelled.add(reservation);
+                }
+            }
+            cancelled.sort(BOOKING_ORDER);
+            for (Reservation reservation : cancelled) {
+                archive.add(reservation);
+                reservationsById.remove(reservation.getReservationId());
+            }
+            pendingArchiveCount.addAndGet(-cancelled.size());
+            return cancelled.size();
+        }
+    }
+    
+    // Sets how many cancellations accumulate before automatic compaction
+    // (1 archives every cancellation immediately)
+    public void setCompactionThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Compaction threshold must be at least 1");
+        }
+        compactionThreshold = threshold;
+        if (pendingArchiveCount.get() >= compactionThreshold) {
+            compactReservations();
+        }
+    }
+    
+    // Returns the current compaction threshold
+    public int getCompactionThreshold() { return compactionThreshold; }
+    
+    // Returns number of cancelled reservations held in the archive
+    public int getArchivedReservationCount() { return archive.size(); }
+    
+    // Returns full reservation history (live and archived) ordered by ID number
+    // (read-only; archived entries are rebuilt as they are read)
+    public List<Reservation> getReservationHistory() {
+        return captureHistory().get();
+    }
+    
+    // Copies the reservations making up the history as they are now, and
+    // returns what orders them into the history (the costly part, left to
+    // whoever needs it)
+    private Supplier<List<Reservation>> captureHistory() {
+        List<Reservation> live;
+        ReservationArchive archived;
+        // Hold off compaction so no reservation is seen in both tiers or neither
+        synchronized (archive) {
+            live = new ArrayList<>(reservationsById.values());
+            archived = archive.copy();
+        }
+        return () -> {
+            List<Reservation> ordered = new ArrayList<>(live);
+            ordered.sort(BOOKING_ORDER);
+            return new ReservationHistory(ordered, archived);
+        };
     }
     
     // ========== AVAILABILITY & SEARCH ==========
@@ -471,64 +1222,83 @@ public class CampusSystem implements Serializable {
         return schedule == null || !schedule.hasReservationAt(day, slot);
     }
     
+    // Finds all resources free at a specific day/time slot
+    public List<CampusResource> findFreeResources(int day, int slot) 
+        throws InvalidTimeSlotException {
+        return findFreeResources(day, slot, (ResourceType) null);
+    }
+    
+    // Finds resources of one type free at a specific day/time slot (empty type = any)
+    public List<CampusResource> findFreeResources(int day, int slot, String type) 
+        throws InvalidTimeSlotException {
+        
+        if (type == null || type.trim().isEmpty()) {
+            return findFreeResources(day, slot, (ResourceType) null);
+        }
+        ResourceType resourceType = ResourceType.fromDisplayName(type);
+        if (resourceType == null) {
+            validateDayIndex(day);
+            validateSlotIndex(slot);
+            return new ArrayList<>();
+        }
+        return findFreeResources(day, slot, resourceType);
+    }
+    
+    // Finds resources of one type free at a specific day/time slot (null type = any)
+    public List<CampusResource> findFreeResources(int day, int slot, ResourceType type) 
+        throws InvalidTimeSlotException {
+        
+        validateDayIndex(day);
+        validateSlotIndex(slot);
+        
+        return readCatalog(() -> {
+            BitSet free = availabilityIndex.freeAt(day, slot);
+            if (type != null) {
+                free.and(ordinalsByType.get(type));
+            }
+            return resourcesForOrdinals(free);
+        });
+    }
+    
     // Gets all active reservations for a specific user
     public List<Reservation> getUserReservations(String username) {
-        List<Reservation> userReservations = new ArrayList<>();
-        for (Reservation reservation : reservations) {
-            if (reservation.getUsername().equals(username) && 
-                reservation.isActive()) {
-                userReservations.add(reservation);
-            }
-        }
-        return userReservations;
+        Set<Reservation> userReservations = activeReservationsByUser.get(username);
+        if (userReservations == null) return new ArrayList<>();
+        return new ArrayList<>(userReservations);
     }
     
     // Gets all active reservations for a specific resource
+    // (read from the resource's schedule, ordered by day and time)
     public List<Reservation> getResourceReservations(String resourceId) {
-        List<Reservation> resourceReservations = new ArrayList<>();
-        for (Reservation reservation : reservations) {
-            if (reservation.getResourceId().equals(resourceId) && 
-                reservation.isActive()) {
-                resourceReservations.add(reservation);
-            }
-        }
-        return resourceReservations;
+        ResourceSchedule schedule = getSchedule(resourceId);
+        if (schedule == null) return new ArrayList<>();
+        return schedule.getAllReservations();
     }
     
     // ========== SEARCH & FILTER METHODS ==========
     
     // Searches resources by name (partial match, case-insensitive)
     public List<CampusResource> searchByName(String nameQuery) {
-        List<CampusResource> results = new ArrayList<>();
-        if (nameQuery == null || nameQuery.trim().isEmpty()) return results;
-        
-        String lowerQuery = nameQuery.toLowerCase().trim();
-        for (CampusResource resource : resources) {
-            if (resource.getName().toLowerCase().contains(lowerQuery)) {
-                results.add(resource);
-            }
-        }
-        return results;
+        if (nameQuery == null || nameQuery.trim().isEmpty()) return new ArrayList<>();
+        return readCatalog(() -> resourcesForOrdinals(nameIndex.search(nameQuery)));
     }
     
     // Filters resources by type (Study Room or Lab Equipment)
     public List<CampusResource> filterByType(String type) {
-        List<CampusResource> results = new ArrayList<>();
-        if (type == null || type.trim().isEmpty()) return results;
-        
-        String lowerType = type.toLowerCase().trim();
-        for (CampusResource resource : resources) {
-            if (resource.getResourceType().toLowerCase().equals(lowerType)) {
-                results.add(resource);
-            }
-        }
-        return results;
+        ResourceType resourceType = ResourceType.fromDisplayName(type);
+        if (resourceType == null) return new ArrayList<>();
+        return filterByType(resourceType);
+    }
+    
+    // Returns a read-only view of one type partition in catalogue order
+    public List<CampusResource> filterByType(ResourceType type) {
+        return Collections.unmodifiableList(resourcesByType.get(type));
     }
     
     // Filters resources by availability status
     public List<CampusResource> filterByAvailability(boolean available) {
         List<CampusResource> results = new ArrayList<>();
-        for (CampusResource resource : resources) {
+        for (CampusResource resource : getResources()) {
             if (isResourceAvailable(resource.getId()) == available) {
                 results.add(resource);
             }
@@ -538,53 +1308,208 @@ public class CampusSystem implements Serializable {
     
     // Searches resources by partial ID match (case-insensitive)
     public List<CampusResource> searchByPartialId(String partialId) {
-        List<CampusResource> results = new ArrayList<>();
-        if (partialId == null || partialId.trim().isEmpty()) return results;
-        
-        String lowerPartial = partialId.toLowerCase().trim();
-        for (CampusResource resource : resources) {
-            if (resource.getId().toLowerCase().contains(lowerPartial)) {
-                results.add(resource);
-            }
-        }
-        return results;
+        if (partialId == null || partialId.trim().isEmpty()) return new ArrayList<>();
+        return readCatalog(() -> resourcesForOrdinals(idIndex.search(partialId)));
     }
     
-    // Filters study rooms by minimum capacity requirement
+    // Filters study rooms by minimum capacity, in catalogue order
     public List<StudyRoom> filterStudyRoomsByMinCapacity(int minCapacity) {
+        return readCatalog(() -> inCatalogueOrder(
+            collectRooms(roomsByCapacity.tailMap(minCapacity, true))));
+    }
+    
+    // Filters study rooms whose capacity lies within [minCapacity, maxCapacity],
+    // smallest capacity first
+    public List<StudyRoom> filterStudyRoomsByCapacityRange(int minCapacity, int maxCapacity) {
+        if (minCapacity > maxCapacity) return new ArrayList<>();
+        return readCatalog(() -> 
+            collectRooms(roomsByCapacity.subMap(minCapacity, true, maxCapacity, true)));
+    }
+    
+    // Finds the smallest study room that fits the group, returns null if none does
+    public StudyRoom findSmallestRoomFor(int groupSize) {
+        return readCatalog(() -> {
+            Map.Entry<Integer, Set<StudyRoom>> entry = roomsByCapacity.ceilingEntry(groupSize);
+            return entry == null ? null : entry.getValue().iterator().next();
+        });
+    }
+    
+    // Sorts rooms taken from the capacity index back into catalogue order
+    private List<StudyRoom> inCatalogueOrder(List<StudyRoom> rooms) {
+        rooms.sort(Comparator.comparingInt(room -> ordinalsById.get(room.getId())));
+        return rooms;
+    }
+    
+    // Flattens a capacity range of the room index into a list (in capacity order)
+    private List<StudyRoom> collectRooms(Map<Integer, Set<StudyRoom>> capacityRange) {
         List<StudyRoom> results = new ArrayList<>();
-        for (CampusResource resource : resources) {
-            if (resource.getResourceType().equals("Study Room")) {
-                StudyRoom room = (StudyRoom) resource;
-                if (room.getCapacity() >= minCapacity) {
-                    results.add(room);
-                }
-            }
+        for (Set<StudyRoom> rooms : capacityRange.values()) {
+            results.addAll(rooms);
         }
         return results;
     }
     
     // Filters lab equipment by equipment type (partial match, case-insensitive)
+    // Only the distinct equipment types are scanned, not every item
     public List<LabEquipment> filterLabEquipmentByType(String equipmentType) {
+        if (equipmentType == null || equipmentType.trim().isEmpty()) return new ArrayList<>();
+        return readCatalog(() -> collectEquipmentOfType(equipmentType));
+    }
+    
+    // Collects lab equipment whose type contains the given text
+    private List<LabEquipment> collectEquipmentOfType(String equipmentType) {
         List<LabEquipment> results = new ArrayList<>();
-        if (equipmentType == null || equipmentType.trim().isEmpty()) return results;
+        String lowerType = equipmentTypeKey(equipmentType);
+        for (Map.Entry<String, Set<LabEquipment>> entry : equipmentByType.entrySet()) {
+            if (entry.getKey().contains(lowerType)) {
+                results.addAll(entry.getValue());
+            }
+        }
+        return results;
+    }
+    
+    // Finds lab equipment whose equipment type matches exactly (case-insensitive)
+    public List<LabEquipment> findLabEquipmentByExactType(String equipmentType) {
+        if (equipmentType == null || equipmentType.trim().isEmpty()) return new ArrayList<>();
+        return readCatalog(() -> {
+            Set<LabEquipment> items = equipmentByType.get(equipmentTypeKey(equipmentType));
+            return items == null ? new ArrayList<>() : new ArrayList<>(items);
+        });
+    }
+    
+    // Finds lab equipment whose equipment type starts with a prefix (case-insensitive)
+    public List<LabEquipment> findLabEquipmentByTypePrefix(String prefix) {
+        if (prefix == null || prefix.trim().isEmpty()) return new ArrayList<>();
         
-        String lowerType = equipmentType.toLowerCase().trim();
-        for (CampusResource resource : resources) {
-            if (resource.getResourceType().equals("Lab Equipment")) {
-                LabEquipment equipment = (LabEquipment) resource;
-                if (equipment.getEquipmentType().toLowerCase().contains(lowerType)) {
-                    results.add(equipment);
+        String key = equipmentTypeKey(prefix);
+        return readCatalog(() -> {
+            List<LabEquipment> results = new ArrayList<>();
+            for (Set<LabEquipment> items : 
+                    equipmentByType.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+                results.addAll(items);
+            }
+            return results;
+        });
+    }
+    
+    // ========== COMPOSITE QUERIES ==========
+    
+    // Candidate count below which names are checked directly instead of via trigrams
+    private static final int NAME_SCAN_THRESHOLD = 64;
+    
+    // Starts a composite query combining several search filters
+    public ResourceQuery query() {
+        return new ResourceQuery(this);
+    }
+    
+    // Plans and runs a composite query: bit-set filters are intersected
+    // smallest first, and the name filter runs last on what remains. Matches
+    // are collected, up to the query's limit, within one validated catalogue
+    // read, so the whole result reflects a single consistent catalogue
+    List<CampusResource> runQuery(ResourceQuery query) {
+        return readCatalog(() -> resourcesForOrdinals(planQuery(query), query.getLimit()));
+    }
+    
+    // Works out the ordinals matching a query (caller runs it via readCatalog)
+    private BitSet planQuery(ResourceQuery query) {
+        List<BitSet> filters = new ArrayList<>();
+        if (query.getType() != null) {
+            filters.add(ordinalsByType.get(query.getType()));
+        }
+        if (query.hasFreeSlot()) {
+            filters.add(availabilityIndex.freeAt(query.getFreeDay(), query.getFreeSlot()));
+        }
+        if (query.getMinCapacity() != null) {
+            filters.add(ordinalsOf(collectRooms(roomsByCapacity.tailMap(query.getMinCapacity(), true))));
+        }
+        if (query.getEquipmentType() != null) {
+            filters.add(ordinalsOf(collectEquipmentOfType(query.getEquipmentType())));
+        }
+        
+        BitSet matches;
+        if (filters.isEmpty()) {
+            matches = new BitSet();
+            for (BitSet typeOrdinals : ordinalsByType.values()) {
+                matches.or(typeOrdinals);
+            }
+        } else {
+            filters.sort(Comparator.comparingInt(BitSet::cardinality));
+            matches = (BitSet) filters.get(0).clone();
+            for (int i = 1; i < filters.size() && !matches.isEmpty(); i++) {
+                matches.and(filters.get(i));
+            }
+        }
+        
+        String name = query.getNameContains();
+        if (name != null && !matches.isEmpty()) {
+            if (matches.cardinality() <= NAME_SCAN_THRESHOLD) {
+                matches = nameIndex.retainMatching(matches, name);
+            } else {
+                matches.and(nameIndex.search(name));
+            }
+        }
+        return matches;
+    }
+    
+    // Streams a composite query's matches lazily in catalogue order: walks
+    // the resources allowed by the prebuilt type and free-slot bit sets and
+    // checks the remaining filters on each one as it is reached, so nothing
+    // past the limit is looked at. Each resource is read consistently, but
+    // catalogue changes made during the walk may or may not be seen
+    Stream<CampusResource> streamQuery(ResourceQuery query) {
+        BitSet candidates = readCatalog(() -> {
+            BitSet allowed = new BitSet();
+            if (query.getType() != null) {
+                allowed.or(ordinalsByType.get(query.getType()));
+            } else {
+                for (BitSet typeOrdinals : ordinalsByType.values()) {
+                    allowed.or(typeOrdinals);
                 }
             }
+            if (query.hasFreeSlot()) {
+                allowed.and(availabilityIndex.freeAt(query.getFreeDay(), query.getFreeSlot()));
+            }
+            return allowed;
+        });
+        Stream<CampusResource> matches = candidates.stream()
+            .mapToObj(ordinal -> readCatalog(() -> resourcesByOrdinal.get(ordinal)))
+            .filter(resource -> resource != null && matchesQuery(resource, query));
+        return query.getLimit() >= 0 ? matches.limit(query.getLimit()) : matches;
+    }
+    
+    // Checks a resource against a query's capacity, equipment type and name
+    // filters (the ones streamQuery does not take from bit sets)
+    private static boolean matchesQuery(CampusResource resource, ResourceQuery query) {
+        Integer minCapacity = query.getMinCapacity();
+        if (minCapacity != null && !(resource instanceof StudyRoom
+                && ((StudyRoom) resource).getCapacity() >= minCapacity)) {
+            return false;
         }
-        return results;
+        String equipmentType = query.getEquipmentType();
+        if (equipmentType != null && !(resource instanceof LabEquipment
+                && equipmentTypeKey(((LabEquipment) resource).getEquipmentType())
+                       .contains(equipmentTypeKey(equipmentType)))) {
+            return false;
+        }
+        String name = query.getNameContains();
+        return name == null
+            || resource.getName().toLowerCase().contains(name.toLowerCase().trim());
+    }
+    
+    // Collects the ordinals of a list of resources into a bit set
+    private BitSet ordinalsOf(List<? extends CampusResource> matching) {
+        BitSet ordinals = new BitSet();
+        for (CampusResource resource : matching) {
+            ordinals.set(ordinalsById.get(resource.getId()));
+        }
+        return ordinals;
     }
     
     // ========== DISPLAY METHODS ==========
     
     // Prints all resources in system with count
     public void printAllResources() {
+        List<CampusResource> resources = getResources();
         System.out.println("\n=== ALL RESOURCES (" + resources.size() + ") ===");
         if (resources.isEmpty()) {
             System.out.println("No resources in system.");
@@ -599,7 +1524,7 @@ public class CampusSystem implements Serializable {
     public void printAvailableResources() {
         System.out.println("\n=== ENTIRELY AVAILABLE RESOURCES ===");
         int availableCount = 0;
-        for (CampusResource resource : resources) {
+        for (CampusResource resource : getResources()) {
             if (isResourceAvailable(resource.getId())) {
                 System.out.println(resource);
                 availableCount++;
@@ -614,17 +1539,18 @@ public class CampusSystem implements Serializable {
     
     // Prints all reservations with active/cancelled counts
     public void printAllReservations() {
-        System.out.println("\n=== ALL RESERVATIONS (" + reservations.size() + ") ===");
-        if (reservations.isEmpty()) {
+        List<Reservation> history = getReservationHistory();
+        System.out.println("\n=== ALL RESERVATIONS (" + history.size() + ") ===");
+        if (history.isEmpty()) {
             System.out.println("No reservations in system.");
         } else {
             int activeCount = 0;
-            for (Reservation reservation : reservations) {
+            for (Reservation reservation : history) {
                 System.out.println(reservation);
                 if (reservation.isActive()) activeCount++;
             }
             System.out.println("Active: " + activeCount + " | Cancelled: " + 
-                             (reservations.size() - activeCount));
+                             (history.size() - activeCount));
         }
     }
     
@@ -662,25 +1588,129 @@ public class CampusSystem implements Serializable {
     
     // ========== PERSISTENCE METHODS ==========
     
-    // Saves entire system state to file using object serialization
+    // Saves the system to file, writing only what changed since the last save
+    // when it can. If a journal is attached for this file (enableJournal),
+    // saving just syncs the changes journaled since, so the cost follows the
+    // number of changes, not the size of the system. Otherwise, for any other
+    // file, and once the journal outgrows the file, the whole file is
+    // rewritten (see consolidate) and no journal is attached
     public void saveToFile(String filename) throws DataPersistenceException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(filename))) {
-            oos.writeObject(this);
-            System.out.println("System saved to: " + filename);
+        System.out.println("System saved to: " + filename + save(filename));
+    }
+    
+    // Saves as saveToFile does without reporting to the console, for saves
+    // made in the background (see AutoSaver)
+    public void autosave(String filename) throws DataPersistenceException {
+        save(filename);
+    }
+    
+    // Saves the system (see saveToFile); returns a note on what was written
+    private String save(String filename) throws DataPersistenceException {
+        ReservationJournal current = journal;
+        if (current == null || !current.getPath().equals(journalPathFor(filename))
+                || journalOutgrew(current, filename)) {
+            writeFull(filename);
+            return "";
+        }
+        try {
+            current.flush();
+            return " (" + current.getChangeCount() + " changes since the last full save)";
         } catch (IOException e) {
             throw new DataPersistenceException(
                 "Failed to save system: " + e.getMessage());
         }
     }
     
-    // Loads entire system state from file
+    // Checks whether a journal has grown past its save file; replaying it
+    // would then take longer than rereading the file, and rewriting the file
+    // costs no more than the changes written since it was last rewritten
+    private static boolean journalOutgrew(ReservationJournal current, String filename) {
+        try {
+            return current.getByteCount() > Files.size(Paths.get(filename));
+        } catch (IOException e) {
+            // Missing or unreadable: rewrite it
+            return true;
+        }
+    }
+    
+    // Writes the entire system state to file in the binary format (see
+    // SaveFileCodec), producing a single self-contained file (bookings wait
+    // while the file is written, so it holds a consistent state). The journal
+    // kept for this file is emptied, as the file now holds its changes
+    public void consolidate(String filename) throws DataPersistenceException {
+        writeFull(filename);
+        System.out.println("System saved to: " + filename);
+    }
+    
+    // Rewrites the save file in full (see consolidate)
+    private void writeFull(String filename) throws DataPersistenceException {
+        long stamp = catalogLock.writeLock();
+        try {
+            ReservationJournal current = journal;
+            Path journalPath = journalPathFor(filename);
+            boolean ownJournal = current != null && current.getPath().equals(journalPath);
+            long previousCheckpoint = journalCheckpoint;
+            if (ownJournal) journalCheckpoint = current.beginCheckpoint();
+            try {
+                writeSnapshot(filename);
+            } catch (IOException e) {
+                journalCheckpoint = previousCheckpoint;
+                throw e;
+            }
+            if (ownJournal) {
+                current.truncateToCheckpoint();
+            } else {
+                // A journal left by another session does not apply to this state
+                Files.deleteIfExists(journalPath);
+            }
+        } catch (IOException e) {
+            throw new DataPersistenceException(
+                "Failed to save system: " + e.getMessage());
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+    
+    // Buffer size for reading and writing save files
+    private static final int SAVE_BUFFER_BYTES = 1 << 16;
+    
+    // Writes the system to a temporary file, syncs it to disk and moves it
+    // over the target, so a crash mid-save leaves the previous file intact
+    // (caller holds the catalogue lock, so the catalogue cannot change)
+    private void writeSnapshot(String filename) throws IOException {
+        Path target = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             BufferedOutputStream out = new BufferedOutputStream(file, SAVE_BUFFER_BYTES)) {
+            SaveFileCodec.write(out, savedContents(), archivePathFor(filename));
+            out.flush();
+            file.getFD().sync();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, 
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    // Loads entire system state from file, then replays the changes journaled
+    // since it was saved. Changes made after loading are not journaled unless
+    // the caller calls enableJournal. Files written by earlier versions with
+    // object serialization still load
     public static CampusSystem loadFromFile(String filename) throws DataPersistenceException {
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(filename))) {
-            CampusSystem loaded = (CampusSystem) ois.readObject();
-            // Update user ID tracking from loaded users
-            User.updateFromLoadedUsers(loaded.getUsers());
+        try (BufferedInputStream in = new BufferedInputStream(
+                new FileInputStream(filename), SAVE_BUFFER_BYTES)) {
+            CampusSystem loaded = SaveFileCodec.isSaveFile(in)
+                ? new CampusSystem(SaveFileCodec.read(in, archivePathFor(filename)))
+                : (CampusSystem) new ObjectInputStream(in).readObject();
+            // Older files have no reservation/user sequence or archive stored
+            loaded.recoverReservationSequence();
+            loaded.recoverUserSequence();
+            loaded.recoverArchive();
+            // Lookup indexes are not saved, so rebuild them
+            loaded.rebuildIndexes();
+            loaded.replayJournal(filename);
             System.out.println("System loaded from: " + filename);
             return loaded;
         } catch (FileNotFoundException e) {
@@ -690,6 +1720,381 @@ public class CampusSystem implements Serializable {
         }
     }
     
+    // ========== JOURNAL ==========
+    
+    // Returns where the journal for a save file lives
+    private static Path journalPathFor(String filename) {
+        return Paths.get(filename + ".journal").toAbsolutePath().normalize();
+    }
+    
+    // Returns where the memory-mapped archive for a save file lives
+    private static Path archivePathFor(String filename) {
+        return Paths.get(filename + ".archive").toAbsolutePath().normalize();
+    }
+    
+    // Moves the archived reservations into a memory-mapped file beside a
+    // save file, where later ones are appended too. Saves to that file then
+    // refer to the archive file instead of copying every record, so loading
+    // it maps the history rather than reading it; saves to other files still
+    // hold the records themselves. Does nothing if already kept there
+    public void enableMappedArchive(String filename) throws DataPersistenceException {
+        long stamp = catalogLock.writeLock();
+        try {
+            archive.moveToFile(archivePathFor(filename));
+        } catch (IOException e) {
+            throw new DataPersistenceException("Failed to map archive: " + e.getMessage());
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+    
+    // Starts journaling every change for a save file, each synced to disk
+    // before the call making it returns: saves the system there as the base
+    // and attaches an empty journal beside it. If changes are already
+    // journaled for that file, only starts syncing each one
+    public void enableJournal(String filename) throws DataPersistenceException {
+        attachJournal(filename, true);
+    }
+    
+    // Starts journaling every change for a save file (as above); syncEachChange
+    // picks whether every change is synced as it is made or only when the
+    // system is next saved (see saveToFile and AutoSaver). If changes are
+    // already journaled for that file, only switches how they are synced
+    public void enableJournal(String filename, boolean syncEachChange)
+            throws DataPersistenceException {
+        attachJournal(filename, syncEachChange);
+    }
+    
+    // Saves the system to a file and attaches an empty journal beside it;
+    // syncEachChange picks whether every change is synced as it is made or
+    // only when the system is next saved (see saveToFile)
+    private void attachJournal(String filename, boolean syncEachChange)
+            throws DataPersistenceException {
+        Path journalPath = journalPathFor(filename);
+        long stamp = catalogLock.writeLock();
+        try {
+            ReservationJournal current = journal;
+            if (current != null && current.getPath().equals(journalPath)) {
+                if (syncEachChange && !journalSyncsChanges) {
+                    // Changes made so far have not been synced either
+                    flushJournal(current);
+                }
+                journalSyncsChanges = syncEachChange;
+                return;
+            }
+            long previousGeneration = journalGeneration;
+            long previousCheckpoint = journalCheckpoint;
+            boolean previousSyncs = journalSyncsChanges;
+            journalGeneration++;
+            journalCheckpoint = 0;
+            try {
+                writeSnapshot(filename);
+                journal = ReservationJournal.create(journalPath, journalGeneration, 0);
+                journalFile = filename;
+                journalSyncsChanges = syncEachChange;
+            } catch (IOException e) {
+                journalGeneration = previousGeneration;
+                journalCheckpoint = previousCheckpoint;
+                throw new DataPersistenceException("Failed to start journal: " + e.getMessage());
+            }
+            if (current != null) closeQuietly(current, previousSyncs);
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+    
+    // Syncs a journal, for callers that report failures as persistence errors
+    private static void flushJournal(ReservationJournal current) throws DataPersistenceException {
+        try {
+            current.flush();
+        } catch (IOException e) {
+            throw new DataPersistenceException("Failed to sync journal: " + e.getMessage());
+        }
+    }
+    
+    // Detaches the journal; later changes are kept in memory only. A journal
+    // synced on each change is synced a last time; one only synced by saves
+    // drops the changes made since the last save, as they were never saved
+    public void closeJournal() throws DataPersistenceException {
+        long stamp = catalogLock.writeLock();
+        try {
+            ReservationJournal current = journal;
+            journal = null;
+            journalFile = null;
+            if (current != null) closeJournal(current, journalSyncsChanges);
+        } catch (IOException e) {
+            throw new DataPersistenceException("Failed to close journal: " + e.getMessage());
+        } finally {
+            catalogLock.unlockWrite(stamp);
+        }
+    }
+    
+    // Closes a journal, syncing or dropping the changes not yet written out
+    private static void closeJournal(ReservationJournal current, boolean syncedChanges)
+            throws IOException {
+        if (syncedChanges) {
+            current.close();
+        } else {
+            current.discard();
+        }
+    }
+    
+    // Closes a replaced journal, reporting rather than throwing a failure
+    private static void closeQuietly(ReservationJournal replaced, boolean syncedChanges) {
+        try {
+            closeJournal(replaced, syncedChanges);
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+    
+    // Appends a change to the journal, if one is attached; returns its
+    // position to wait on (0 when journaling is off)
+    private long journalChange(JournalRecord record) {
+        ReservationJournal current = journal;
+        return current == null ? 0 : current.append(record);
+    }
+    
+    // Waits until journaled changes up to a position are on disk. Called
+    // outside the catalogue lock so a disk sync never holds up other threads;
+    // concurrent callers share one sync (see ReservationJournal)
+    private void awaitJournal(long position) {
+        ReservationJournal current = journal;
+        if (current == null || position == 0 || !journalSyncsChanges) return;
+        long[] deferred = deferredJournalPosition.get();
+        if (deferred != null) {
+            deferred[0] = Math.max(deferred[0], position);
+            return;
+        }
+        syncJournal(current, position);
+    }
+    
+    // Puts off the sync each change made on the calling thread waits for,
+    // until syncDeferredJournal; lets a CommandQueue writer sync a whole
+    // batch of changes at once
+    void deferJournalSyncs() {
+        deferredJournalPosition.set(new long[1]);
+    }
+    
+    // Waits until every change the calling thread made since its last call
+    // is on disk (one sync covers them all); changes stay deferred afterwards
+    void syncDeferredJournal() {
+        long[] deferred = deferredJournalPosition.get();
+        ReservationJournal current = journal;
+        if (deferred == null || deferred[0] == 0) return;
+        long position = deferred[0];
+        deferred[0] = 0;
+        if (current != null && journalSyncsChanges) syncJournal(current, position);
+    }
+    
+    // Waits until a journal is on disk up to a position
+    private static void syncJournal(ReservationJournal current, long position) {
+        try {
+            current.awaitDurable(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Change was made but could not be journaled", e);
+        }
+    }
+    
+    // Writes a checkpoint: saves the system to its journal's file and drops
+    // the journal records the file now covers, so a restart replays only the
+    // changes made since. Bookings and cancellations carry on while the file
+    // is written (catalogue changes wait); returns false if not journaling,
+    // or if the journal only holds changes until the next save (saving is
+    // then up to the user, see saveToFile)
+    public synchronized boolean checkpoint() throws DataPersistenceException {
+        long stamp = catalogLock.writeLock();
+        try {
+            ReservationJournal current = journal;
+            if (current == null || !journalSyncsChanges) return false;
+            // Every change journaled so far is complete (changes hold the
+            // catalogue lock until they are), so the file will include them
+            long previousCheckpoint = journalCheckpoint;
+            journalCheckpoint = current.beginCheckpoint();
+            stamp = catalogLock.tryConvertToReadLock(stamp);
+            // Changes journaled from here on may or may not make it into the
+            // file; replaying them is harmless either way (see applyJournalRecord)
+            try {
+                writeSnapshot(journalFile);
+            } catch (IOException e) {
+                journalCheckpoint = previousCheckpoint;
+                throw e;
+            }
+            current.truncateToCheckpoint();
+            return true;
+        } catch (IOException e) {
+            throw new DataPersistenceException("Failed to write checkpoint: " + e.getMessage());
+        } finally {
+            catalogLock.unlock(stamp);
+        }
+    }
+    
+    // Returns the number of changes journaled since the last checkpoint
+    // (0 when not journaling)
+    public long getJournaledChangeCount() {
+        ReservationJournal current = journal;
+        return current == null ? 0 : current.getChangeCount();
+    }
+    
+    // Returns the number of journaled changes not yet synced to disk (those
+    // waiting for the next save when changes are only synced by saves)
+    public long getUnsavedChangeCount() {
+        ReservationJournal current = journal;
+        return current == null ? 0 : current.getUnsyncedCount();
+    }
+    
+    // Waits until count changes have been journaled since the last checkpoint
+    // or the timeout passes; returns the number journaled (0 when not journaling)
+    public long awaitJournaledChanges(long count, long timeoutMillis) throws InterruptedException {
+        ReservationJournal current = journal;
+        if (current == null) {
+            Thread.sleep(timeoutMillis);
+            return 0;
+        }
+        return current.awaitChanges(count, timeoutMillis);
+    }
+    
+    // Replays the journal kept beside a just-loaded file. The journal is not
+    // attached: later changes stay in memory until saved, unless the caller
+    // starts journaling again (enableJournal)
+    private void replayJournal(String filename) throws IOException {
+        Path journalPath = journalPathFor(filename);
+        if (!Files.exists(journalPath)) return;
+        List<JournalRecord> records = 
+            ReservationJournal.read(journalPath, journalGeneration, journalCheckpoint);
+        for (JournalRecord record : records) {
+            applyJournalRecord(record);
+        }
+        dropUnpublishedReservations();
+        if (pendingArchiveCount.get() >= compactionThreshold) {
+            archiveCancelled();
+        }
+        if (!records.isEmpty()) {
+            catalogVersion.incrementAndGet();
+            userVersion.incrementAndGet();
+            reservationVersion.incrementAndGet();
+            System.out.println("Replayed " + records.size() + " journaled changes");
+        }
+    }
+    
+    // Frees slots holding a reservation that is not in the live set: a
+    // checkpoint can catch a booking that was claimed but later rolled back
+    private void dropUnpublishedReservations() {
+        for (ResourceSchedule schedule : schedules) {
+            Integer ordinal = ordinalsById.get(schedule.getResourceId());
+            for (Reservation reservation : schedule.getAllReservations()) {
+                if (reservationsById.get(reservation.getReservationId()) != reservation) {
+                    int day = reservation.getDayIndex();
+                    int slot = reservation.getSlotIndex();
+                    schedule.release(day, slot, reservation);
+                    if (ordinal != null) syncAvailability(ordinal, schedule, day, slot);
+                }
+            }
+        }
+    }
+    
+    // Applies one journaled change as recorded, without permission checks.
+    // Each change can be applied to a state that already has it, in full or
+    // in part (a checkpoint taken while it ran), and ends in the same state
+    private void applyJournalRecord(JournalRecord record) {
+        switch (record.getType()) {
+            case ADD_USER:
+                replayAddUser(record);
+                break;
+            case ADD_RESOURCE:
+                if (findResource(record.getKey()) == null) {
+                    registerResource(record.getFlag()
+                        ? new StudyRoom(record.getKey(), record.getName(), record.getCapacity())
+                        : new LabEquipment(record.getKey(), record.getName(), 
+                                           record.getEquipmentType()));
+                }
+                break;
+            case EDIT_RESOURCE:
+                replayEdit(record);
+                break;
+            case REMOVE_RESOURCE:
+                CampusResource removed = findResource(record.getKey());
+                if (removed != null) unregisterResource(removed);
+                break;
+            case RESERVE:
+                replayReservation(record);
+                break;
+            case CANCEL:
+                replayCancel(record);
+                break;
+        }
+    }
+    
+    // Re-registers a journaled user under the ID it was given
+    private void replayAddUser(JournalRecord record) {
+        userSequence.accumulateAndGet(User.sequenceOf(record.getReference()), Math::max);
+        if (findUser(record.getKey()) != null) return;
+        User user = record.getFlag() 
+            ? new Administrator(record.getKey(), record.getReference())
+            : new Student(record.getKey(), record.getReference());
+        usersByName.put(user.getUsername(), user);
+        users.add(user);
+    }
+    
+    // Re-applies a journaled edit through the same steps as the original
+    private void replayEdit(JournalRecord record) {
+        CampusResource resource = findResource(record.getKey());
+        try {
+            if (resource instanceof StudyRoom) {
+                applyStudyRoomEdit(record.getKey(), record.getName(), record.getCapacity());
+            } else if (resource instanceof LabEquipment) {
+                applyLabEquipmentEdit(record.getKey(), record.getName(), record.getEquipmentType());
+            }
+        } catch (ResourceNotFoundException | InvalidInputException e) {
+            // Only edits that succeeded are journaled, so this cannot happen
+            System.out.println("Skipped journaled edit of " + record.getKey() + ": " + e.getMessage());
+        }
+    }
+    
+    // Re-books a journaled reservation under the ID it was given. A checkpoint
+    // may have caught the booking half done (in the live set but not yet in
+    // its slot, or the other way round), or caught its slot already rebooked
+    private void replayReservation(JournalRecord record) {
+        String reservationId = record.getKey();
+        reservationSequence.accumulateAndGet(Reservation.sequenceOf(reservationId), Math::max);
+        CampusResource resource = findResource(record.getReference());
+        if (resource == null) return;
+        ResourceSchedule schedule = getSchedule(resource.getId());
+        int day = record.getDayIndex();
+        int slot = record.getSlotIndex();
+        
+        Reservation reservation = findReservation(reservationId);
+        Reservation inSlot = schedule.getReservation(day, slot);
+        if (reservation == null && inSlot != null 
+                && inSlot.getReservationId().equals(reservationId)) {
+            reservation = inSlot;
+        }
+        if (reservation == null) {
+            reservation = new Reservation(reservationId, resource, record.getName(), day, slot);
+        }
+        if (!reservation.isActive()) return;
+        if (inSlot != reservation && !schedule.claim(day, slot, reservation)) {
+            // The slot already holds a later booking, so this reservation is
+            // cancelled further on in the journal; keep it for that to find
+            reservationsById.put(reservationId, reservation);
+            indexUserReservation(reservation);
+            return;
+        }
+        publishReservation(reservation, schedule);
+    }
+    
+    // Re-cancels a journaled cancellation. A checkpoint may have caught it
+    // half done, with the slot already freed but the reservation still active
+    private void replayCancel(JournalRecord record) {
+        Reservation reservation = reservationsById.get(record.getKey());
+        if (reservation == null || !reservation.isActive()) return;
+        if (!releaseReservation(reservation)) {
+            reservation.cancel();
+            unindexUserReservation(reservation);
+        }
+        pendingArchiveCount.incrementAndGet();
+    }
+    
     // Exports system data to human-readable text files
     public void exportToTextFiles() throws DataPersistenceException {
         try {
@@ -710,7 +2115,7 @@ public class CampusSystem implements Serializable {
             writer.println("# Format: ID | Name | Type | Available | Details");
             writer.println("#" + "=".repeat(60));
             
-            for (CampusResource resource : resources) {
+            for (CampusResource resource : getResources()) {
                 boolean available = isResourceAvailable(resource.getId());
                 writer.printf("%s | %s | %s | %b | %s%n",
                     resource.getId(),
@@ -729,7 +2134,7 @@ public class CampusSystem implements Serializable {
             writer.println("# Format: ReservationID | ResourceID | Username | Day | Slot | Status");
             writer.println("#" + "=".repeat(60));
             
-            for (Reservation reservation : reservations) {
+            for (Reservation reservation : getReservationHistory()) {
                 String status = reservation.isActive() ? "ACTIVE" : "CANCELLED";
                 writer.printf("%s | %s | %s | %d | %d | %s%n",
                     reservation.getReservationId(),
@@ -758,14 +2163,64 @@ public class CampusSystem implements Serializable {
         }
     }
     
+    // ========== SNAPSHOTS ==========
+    
+    // Returns a read-only view of the current resources, users, reservations
+    // and schedules; the same instance is shared until one of them changes,
+    // and a new one reuses every list that did not change. Each list is
+    // point-in-time (the reservation history as of its first request), but
+    // the objects in them stay live (e.g. a reservation cancelled later
+    // shows as cancelled)
+    public CampusSnapshot snapshot() {
+        CampusSnapshot current = snapshot;
+        // Versions are read before copying: a change made during the copy
+        // leaves the list tagged as older, so the next call copies again
+        long catalogAt = catalogVersion.get();
+        long usersAt = userVersion.get();
+        long reservationsAt = reservationVersion.get();
+        if (current != null && current.getCatalogVersion() == catalogAt
+                && current.getUserVersion() == usersAt
+                && current.getReservationVersion() == reservationsAt) {
+            return current;
+        }
+        
+        boolean catalogCurrent = current != null && current.getCatalogVersion() == catalogAt;
+        List<CampusResource> resourceList = catalogCurrent ? current.getResources()
+            : readCatalog(() -> Collections.unmodifiableList(new ArrayList<>(resources)));
+        List<ResourceSchedule> scheduleList = catalogCurrent ? current.getSchedules()
+            : readCatalog(() -> Collections.unmodifiableList(new ArrayList<>(schedules)));
+        List<User> userList = current != null && current.getUserVersion() == usersAt
+            ? current.getUsers()
+            : Collections.unmodifiableList(new ArrayList<>(users));
+        // Share the previous snapshot's history if no reservation was made
+        // since; otherwise copy the reservations now, so the history matches
+        // the other lists, and order them on first request
+        Supplier<List<Reservation>> history = current != null
+            && current.getReservationVersion() == reservationsAt
+            ? current.getHistorySource() : captureHistory();
+        CampusSnapshot built = new CampusSnapshot(catalogAt, resourceList, scheduleList,
+            usersAt, userList, reservationsAt, history);
+        snapshot = built;
+        return built;
+    }
+    
     // ========== GETTERS FOR TESTING ==========
     
-    // Returns copy of resources list for testing
-    public List<CampusResource> getResources() { return new ArrayList<>(resources); }
-    // Returns copy of users list for testing
-    public List<User> getUsers() { return new ArrayList<>(users); }
-    // Returns copy of reservations list for testing
-    public List<Reservation> getReservations() { return new ArrayList<>(reservations); }
-    // Returns copy of schedules list for testing
-    public List<ResourceSchedule> getSchedules() { return new ArrayList<>(schedules); }
+    // Returns read-only resources list from the current snapshot
+    public List<CampusResource> getResources() { return snapshot().getResources(); }
+    // Returns read-only users list from the current snapshot
+    public List<User> getUsers() { return snapshot().getUsers(); }
+    // Returns full reservation history (active, cancelled and archived) from the current snapshot
+    public List<Reservation> getReservations() { return snapshot().getReservations(); }
+    // Returns only the active reservations
+    public List<Reservation> getActiveReservations() {
+        List<Reservation> active = new ArrayList<>();
+        for (Reservation reservation : reservationsById.values()) {
+            if (reservation.isActive()) active.add(reservation);
+        }
+        active.sort(BOOKING_ORDER);
+        return active;
+    }
+    // Returns read-only schedules list from the current snapshot
+    public List<ResourceSchedule> getSchedules() { return snapshot().getSchedules(); }
 }
@@ -0,0 +1,119 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark for catalogue reads (searches, filters, free-slot lookups)
+ * Compares optimistic reads with always taking the read lock, for a
+ * read-only workload and a mixed one where a writer renames a room every
+ * ~20 microseconds, at 1, 2, 4 and 8 reader threads.
+ * Run: java CatalogReadBenchmark [secondsPerRun] [rooms]
+ */
+public class CatalogReadBenchmark {
+    // Defaults used when no duration or room count is given on the command line
+    private static final int DEFAULT_SECONDS = 2;
+    private static final int DEFAULT_ROOMS = 200;
+    // Reader thread counts measured
+    private static final int[] READER_COUNTS = {1, 2, 4, 8};
+    // Pause between the writer's catalogue changes
+    private static final long WRITE_PAUSE_NANOS = 20_000;
+
+    // Program entry point
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+        int rooms = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROOMS;
+        CampusSystem campus = buildCampus(rooms);
+        // Warm up both paths so the first measured run is not paying for JIT compilation
+        run(campus, true, 2, true, 1);
+        run(campus, false, 2, true, 1);
+
+        System.out.println("\n=== CATALOGUE READS: " + rooms + " rooms, " + seconds + "s per run, "
+                           + Runtime.getRuntime().availableProcessors() + " CPU(s) ===");
+        for (boolean withWriter : new boolean[] {false, true}) {
+            System.out.println(withWriter ? "\nMixed (one writer renaming a room every ~20us):"
+                                          : "\nRead-only:");
+            System.out.printf("  %-8s %-26s %-26s%n", "readers", "locked reads/s (writes/s)",
+                              "optimistic reads/s (writes/s)");
+            for (int readers : READER_COUNTS) {
+                long[] locked = run(campus, true, readers, withWriter, seconds);
+                long[] optimistic = run(campus, false, readers, withWriter, seconds);
+                System.out.printf("  %-8d %-26s %-26s%n", readers,
+                                  format(locked, withWriter), format(optimistic, withWriter));
+            }
+        }
+    }
+
+    // Creates a system with the default data plus the given number of rooms
+    private static CampusSystem buildCampus(int rooms) throws Exception {
+        CampusSystem campus = new CampusSystem();
+        for (int i = 0; i < rooms; i++) {
+            campus.addResource(new StudyRoom("BR" + i, "Bench Room " + i, 2 + i % 40), "admin");
+        }
+        return campus;
+    }
+
+    // Runs readers (and the writer) for a while; returns reads/s and writes/s
+    private static long[] run(CampusSystem campus, boolean lockedReads, int readers,
+                              boolean withWriter, int seconds) throws InterruptedException {
+        campus.setLockedReads(lockedReads);
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            final int seed = r;
+            threads.add(new Thread(() -> readLoop(campus, seed, stop, reads)));
+        }
+        if (withWriter) {
+            threads.add(new Thread(() -> writeLoop(campus, stop, writes)));
+        }
+        for (Thread thread : threads) thread.start();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        stop.set(true);
+        for (Thread thread : threads) thread.join();
+        return new long[] {reads.sum() / seconds, writes.sum() / seconds};
+    }
+
+    // Cycles through the catalogue reads until stopped
+    private static void readLoop(CampusSystem campus, int seed, AtomicBoolean stop, LongAdder reads) {
+        int i = seed;
+        try {
+            while (!stop.get()) {
+                switch (i++ % 4) {
+                    case 0: campus.searchByName("Room " + (i % 100)); break;
+                    case 1: campus.filterStudyRoomsByMinCapacity(i % 40); break;
+                    case 2: campus.findFreeResources(i % ResourceSchedule.DAYS_PER_WEEK,
+                                                     i % ResourceSchedule.SLOTS_PER_DAY); break;
+                    default: campus.searchByPartialId("BR" + (i % 50)); break;
+                }
+                reads.increment();
+            }
+        } catch (InvalidTimeSlotException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Renames a room back and forth until stopped
+    private static void writeLoop(CampusSystem campus, AtomicBoolean stop, LongAdder writes) {
+        int i = 0;
+        try {
+            while (!stop.get()) {
+                campus.editStudyRoom("BR0", "Bench Room 0" + (i++ % 2 == 0 ? "" : " (renamed)"),
+                                     null, "admin");
+                writes.increment();
+                LockSupport.parkNanos(WRITE_PAUSE_NANOS);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Formats one run's result, e.g. "264k (9178)"
+    private static String format(long[] result, boolean withWriter) {
+        String reads = result[0] >= 10_000 ? (result[0] / 1000) + "k" : String.valueOf(result[0]);
+        return withWriter ? reads + " (" + result[1] + ")" : reads;
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background checkpointer for a journaled CampusSystem
+ * Writes a checkpoint once a set number of changes has been journaled, or
+ * once a set time has passed since the last one with any change pending,
+ * so the journal (and the replay on the next start) stays short
+ */
+public class Checkpointer implements AutoCloseable {
+    // Longest the worker waits before checking whether it has been closed
+    private static final long POLL_MILLIS = 200;
+
+    // System being checkpointed
+    private final CampusSystem campus;
+    // Journaled changes that trigger a checkpoint straight away
+    private final long changeThreshold;
+    // Longest time changes may sit in the journal before a checkpoint
+    private final long intervalMillis;
+    // Thread writing the checkpoints
+    private final Thread worker;
+    // Set by close(); the worker stops at its next check
+    private volatile boolean closed;
+
+    // Statistics: checkpoints written, and the duration of the last one
+    private volatile long checkpointCount;
+    private volatile long lastCheckpointMillis;
+
+    // Constructor starts the worker thread
+    public Checkpointer(CampusSystem campus, long changeThreshold, long interval, TimeUnit unit) {
+        if (changeThreshold < 1) {
+            throw new IllegalArgumentException("Change threshold must be at least 1");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        this.campus = campus;
+        this.changeThreshold = changeThreshold;
+        this.intervalMillis = unit.toMillis(interval);
+        this.worker = new Thread(this::runWorker, "campus-checkpointer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Waits for enough changes or the interval, then checkpoints, until closed
+    private void runWorker() {
+        long lastCheckpoint = System.currentTimeMillis();
+        while (!closed) {
+            long untilDue = lastCheckpoint + intervalMillis - System.currentTimeMillis();
+            long changes;
+            try {
+                changes = campus.awaitJournaledChanges(changeThreshold,
+                                                       Math.max(1, Math.min(untilDue, POLL_MILLIS)));
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (closed) return;
+            boolean due = System.currentTimeMillis() - lastCheckpoint >= intervalMillis;
+            if (changes >= changeThreshold || (due && changes > 0)) {
+                runCheckpoint();
+                lastCheckpoint = System.currentTimeMillis();
+            } else if (due) {
+                lastCheckpoint = System.currentTimeMillis();
+            }
+        }
+    }
+
+    // Writes one checkpoint, reporting a failure rather than stopping
+    private void runCheckpoint() {
+        long start = System.nanoTime();
+        try {
+            if (campus.checkpoint()) {
+                lastCheckpointMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                checkpointCount++;
+            }
+        } catch (DataPersistenceException e) {
+            System.out.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    // Returns the number of checkpoints written so far
+    public long getCheckpointCount() { return checkpointCount; }
+
+    // Returns how long the most recent checkpoint took, in milliseconds
+    public long getLastCheckpointMillis() { return lastCheckpointMillis; }
+
+    // Stops the worker, waiting for a checkpoint in progress to finish
+    @Override
+    public void close() {
+        closed = true;
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
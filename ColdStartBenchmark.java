@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Benchmark of cold-start time (loadFromFile) against the amount of data
+ * For each size it times loading the save file alone, loading it with a
+ * tail of journaled changes to replay, and loading again after a
+ * checkpoint has folded that tail into the file.
+ * Run: java ColdStartBenchmark [largestResourceCount] [loadsPerMeasurement]
+ */
+public class ColdStartBenchmark {
+    // Defaults used when no size or load count is given on the command line
+    private static final int DEFAULT_MAX_RESOURCES = 8000;
+    private static final int DEFAULT_LOADS = 5;
+    // Bookings made per resource before the base file is written
+    private static final int BOOKINGS_PER_RESOURCE = 20;
+    // Bookings per resource journaled after the base file is written
+    private static final int TAIL_PER_RESOURCE = 5;
+
+    // Console output, kept while loads print their progress to nowhere
+    private static final PrintStream CONSOLE = System.out;
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    // Program entry point
+    public static void main(String[] args) throws Exception {
+        int maxResources = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_RESOURCES;
+        int loads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LOADS;
+        Path dir = Files.createTempDirectory("coldstart");
+        String filename = dir.resolve("campus.bin").toString();
+        try {
+            // Warm up the load path so the first size is not paying for JIT compilation
+            measure(Math.min(maxResources, 500), 2, filename);
+
+            CONSOLE.println("\n=== COLD START vs DATA SIZE: best of " + loads + " loads ===");
+            CONSOLE.printf("  %-10s %-13s %-10s %-12s %-22s %-12s %-12s%n", "resources",
+                           "reservations", "file KB", "load ms", "+journal tail ms",
+                           "checkpoint", "load after");
+            for (int resources = maxResources / 16; resources <= maxResources; resources *= 2) {
+                long[] result = measure(resources, loads, filename);
+                CONSOLE.printf("  %-10d %-13d %-10d %-12.1f %-22s %-12s %-12.1f%n",
+                               resources, result[0], result[1] / 1024, result[2] / 1e6,
+                               String.format("%.1f (%d changes)", result[3] / 1e6,
+                                             resources * TAIL_PER_RESOURCE),
+                               String.format("%.1f ms", result[4] / 1e6), result[5] / 1e6);
+            }
+        } finally {
+            System.setOut(CONSOLE);
+            deleteSaveFiles(filename);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // Builds a system of the given size and times its loads; returns the
+    // reservation count, file size, and the load / load with tail /
+    // checkpoint / load after checkpoint times in nanoseconds
+    private static long[] measure(int resources, int loads, String filename) throws Exception {
+        System.setOut(DISCARD);
+        try {
+            CampusSystem campus = new CampusSystem();
+            for (int i = 0; i < resources; i++) {
+                campus.addResource(new StudyRoom("CS" + i, "Cold Room " + i, 10), "admin");
+            }
+            book(campus, resources, 0, BOOKINGS_PER_RESOURCE);
+            // Writes the base file; every later change goes to the journal
+            campus.enableJournal(filename);
+            long fileBytes = Files.size(Paths.get(filename));
+            long baseLoad = bestLoad(filename, loads);
+
+            book(campus, resources, BOOKINGS_PER_RESOURCE, TAIL_PER_RESOURCE);
+            long tailLoad = bestLoad(filename, loads);
+
+            long start = System.nanoTime();
+            campus.checkpoint();
+            long checkpoint = System.nanoTime() - start;
+            long checkpointedLoad = bestLoad(filename, loads);
+            long reservations = campus.getReservationHistory().size();
+            campus.closeJournal();
+            return new long[] {reservations, fileBytes, baseLoad, tailLoad, checkpoint,
+                               checkpointedLoad};
+        } finally {
+            System.setOut(CONSOLE);
+        }
+    }
+
+    // Books the given run of slots on every resource
+    private static void book(CampusSystem campus, int resources, int firstSlot, int count)
+            throws Exception {
+        for (int i = 0; i < resources; i++) {
+            for (int n = firstSlot; n < firstSlot + count; n++) {
+                campus.makeReservation("CS" + i, "user" + (i % 50),
+                                       n / ResourceSchedule.SLOTS_PER_DAY,
+                                       n % ResourceSchedule.SLOTS_PER_DAY);
+            }
+        }
+    }
+
+    // Loads the file the given number of times; returns the fastest load
+    private static long bestLoad(String filename, int loads) throws DataPersistenceException {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < loads; i++) {
+            long start = System.nanoTime();
+            CampusSystem.loadFromFile(filename);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // Removes the save file and the files kept beside it
+    private static void deleteSaveFiles(String filename) throws IOException {
+        for (String suffix : new String[] {"", ".journal", ".archive", ".tmp"}) {
+            Files.deleteIfExists(Paths.get(filename + suffix));
+        }
+    }
+}
@@ -0,0 +1,264 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional single-writer execution mode for CampusSystem
+ * Callers submit mutations as commands to a bounded queue and get a
+ * CompletableFuture back; one writer thread runs them in submission order,
+ * so changes never contend with each other and their order is deterministic
+ *
+ * Commands are taken off the queue in batches. Changes a batch makes are
+ * synced to the system's journal once, after the whole batch has run, and
+ * only then are the batch's futures completed; an after-batch hook runs
+ * once per batch after that, for any other per-batch work.
+ */
+public class CommandQueue implements AutoCloseable {
+    // Most commands the writer takes off the queue in one go
+    private static final int MAX_BATCH = 256;
+    // Marker queued by close() telling the writer to stop
+    private static final QueuedCommand<Void> STOP = new QueuedCommand<>(null, null);
+    // Longest a submitter waits for room before checking whether the queue closed
+    private static final long OFFER_POLL_MILLIS = 100;
+    
+    // System the commands run against
+    private final CampusSystem campus;
+    // Bounded buffer between submitting threads and the writer
+    private final BlockingQueue<QueuedCommand<?>> queue;
+    // The single thread running every command
+    private final Thread writer;
+    // Runs after each batch of commands (null = nothing)
+    private volatile Runnable afterBatch;
+    // Set once close() has been called; no new commands are accepted
+    private volatile boolean closed;
+    
+    // Constructor starts the writer thread; submitters block while
+    // capacity commands are already waiting
+    public CommandQueue(CampusSystem campus, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        this.campus = campus;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::runWriter, "campus-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    // Sets the hook run by the writer after each batch of commands (once
+    // its changes are journaled and its futures completed)
+    public void setAfterBatch(Runnable afterBatch) {
+        this.afterBatch = afterBatch;
+    }
+    
+    // Queues a command; the future completes with its result or exception.
+    // Fails straight away once the queue is closed, including for a
+    // submitter still waiting for room when it closes
+    public <T> CompletableFuture<T> submit(CampusCommand<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        QueuedCommand<T> queued = new QueuedCommand<>(command, future);
+        boolean accepted = false;
+        try {
+            // Wait for room in short steps, so a close() ends the wait
+            while (!accepted && !closed) {
+                accepted = queue.offer(queued, OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (!accepted) {
+            queued.fail(closedException());
+            return future;
+        }
+        // Closed while this was being queued: once the writer has finished,
+        // fail the command if the writer never reached it
+        if (closed && Thread.currentThread() != writer) {
+            if (joinWriter()) Thread.currentThread().interrupt();
+            failStranded();
+        }
+        return future;
+    }
+    
+    // ========== QUEUED OPERATIONS ==========
+    
+    // Queues CampusSystem.makeReservation
+    public CompletableFuture<Reservation> makeReservation(String resourceId, String username,
+                                                          int dayIndex, int slotIndex) {
+        return submit(c -> c.makeReservation(resourceId, username, dayIndex, slotIndex));
+    }
+    
+    // Queues CampusSystem.makeReservations
+    public CompletableFuture<List<ReservationResult>> makeReservations(
+            String username, List<ReservationRequest> requests) {
+        return submit(c -> c.makeReservations(username, requests));
+    }
+    
+    // Queues CampusSystem.cancelReservation
+    public CompletableFuture<Reservation> cancelReservation(String reservationId, String username) {
+        return submit(c -> c.cancelReservation(reservationId, username));
+    }
+    
+    // Queues CampusSystem.addUser
+    public CompletableFuture<User> addUser(String username, boolean isAdmin) {
+        return submit(c -> c.addUser(username, isAdmin));
+    }
+    
+    // Queues CampusSystem.addResource
+    public CompletableFuture<CampusResource> addResource(CampusResource resource, String username) {
+        return submit(c -> c.addResource(resource, username));
+    }
+    
+    // Queues CampusSystem.editResource
+    public CompletableFuture<Boolean> editResource(String resourceId, String newName, 
+                                                   String username) {
+        return submit(c -> c.editResource(resourceId, newName, username));
+    }
+    
+    // Queues CampusSystem.editStudyRoom
+    public CompletableFuture<Boolean> editStudyRoom(String roomId, String newName,
+                                                    Integer newCapacity, String username) {
+        return submit(c -> c.editStudyRoom(roomId, newName, newCapacity, username));
+    }
+    
+    // Queues CampusSystem.editLabEquipment
+    public CompletableFuture<Boolean> editLabEquipment(String equipId, String newName,
+                                                       String newType, String username) {
+        return submit(c -> c.editLabEquipment(equipId, newName, newType, username));
+    }
+    
+    // Queues CampusSystem.removeResource
+    public CompletableFuture<Boolean> removeResource(String resourceId, String username) {
+        return submit(c -> c.removeResource(resourceId, username));
+    }
+    
+    // ========== WRITER ==========
+    
+    // Writer loop: waits for a command, takes whatever else is waiting with it,
+    // runs the batch in order, syncs its changes and completes its futures,
+    // then runs the after-batch hook
+    private void runWriter() {
+        // Commands do not wait for their own journal sync; finishBatch syncs
+        // each batch's changes together
+        campus.deferJournalSyncs();
+        List<QueuedCommand<?>> batch = new ArrayList<>(MAX_BATCH);
+        List<QueuedCommand<?>> ran = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    // Only close() stops the writer
+                    continue;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (QueuedCommand<?> command : batch) {
+                    if (command == STOP) {
+                        stopping = true;
+                    } else if (stopping) {
+                        // Queued after close(): rejected like any later submission
+                        command.fail(closedException());
+                    } else {
+                        command.run(campus);
+                        ran.add(command);
+                    }
+                }
+                finishBatch(ran);
+                batch.clear();
+                ran.clear();
+                runAfterBatch();
+            }
+        } finally {
+            // Reached early only if the writer itself failed: no command may
+            // be left waiting for it
+            closed = true;
+            IllegalStateException stopped = new IllegalStateException("Command queue writer stopped");
+            for (QueuedCommand<?> command : batch) {
+                if (command != STOP) command.fail(stopped);
+            }
+            failStranded();
+        }
+    }
+    
+    // Syncs the changes a batch made to the journal (one sync for the whole
+    // batch), then completes the futures of the commands that ran
+    private void finishBatch(List<QueuedCommand<?>> ran) {
+        Throwable syncFailure = null;
+        try {
+            campus.syncDeferredJournal();
+        } catch (Throwable e) {
+            syncFailure = e;
+        }
+        for (QueuedCommand<?> command : ran) {
+            command.complete(syncFailure);
+        }
+    }
+    
+    // Runs the after-batch hook, reporting rather than stopping on a failure
+    private void runAfterBatch() {
+        Runnable hook = afterBatch;
+        if (hook == null) return;
+        try {
+            hook.run();
+        } catch (Throwable e) {
+            System.out.println("Error after command batch: " + e);
+        }
+    }
+    
+    // Stops accepting commands, lets the writer finish what is already
+    // queued and waits for it
+    @Override
+    public synchronized void close() {
+        if (closed && !writer.isAlive()) {
+            failStranded();
+            return;
+        }
+        closed = true;
+        boolean interrupted = false;
+        boolean queued = false;
+        // Wait for room in short steps, in case the writer has stopped
+        while (!queued && writer.isAlive()) {
+            try {
+                queued = queue.offer(STOP, OFFER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        interrupted |= joinWriter();
+        failStranded();
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+    
+    // Waits for the writer thread to end; returns whether the wait was interrupted
+    private boolean joinWriter() {
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        return interrupted;
+    }
+    
+    // Fails commands queued after the writer stopped
+    private void failStranded() {
+        QueuedCommand<?> command;
+        while ((command = queue.poll()) != null) {
+            if (command != STOP) {
+                command.fail(closedException());
+            }
+        }
+    }
+    
+    // Returns the exception failing commands submitted after close()
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("Command queue is closed");
+    }
+}
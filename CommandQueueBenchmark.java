@@ -0,0 +1,121 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark comparing bookings made by direct (locked) CampusSystem calls
+ * with the same bookings submitted through a CommandQueue
+ * Every thread books its own sequence of slots across a set of rooms; the
+ * queued run waits for every future, so both runs time completed bookings.
+ * Run: java CommandQueueBenchmark [threads] [bookingsPerThread] [rounds]
+ */
+public class CommandQueueBenchmark {
+    // Defaults used when no thread, booking or round count is given on the command line
+    private static final int DEFAULT_THREADS = 8;
+    private static final int DEFAULT_BOOKINGS = 5000;
+    private static final int DEFAULT_ROUNDS = 5;
+    // Rooms the bookings are spread across
+    private static final int ROOMS = 500;
+    // Queue capacity used for the queued runs
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // Program entry point
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int bookings = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BOOKINGS;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROUNDS;
+
+        System.out.println("\n=== COMMAND QUEUE vs DIRECT CALLS: " + threads + " threads x "
+                           + bookings + " bookings, " + ROOMS + " rooms, "
+                           + Runtime.getRuntime().availableProcessors() + " CPU(s) ===");
+        for (int round = 1; round <= rounds; round++) {
+            double direct = runDirect(threads, bookings);
+            AtomicInteger batches = new AtomicInteger();
+            double queued = runQueued(threads, bookings, batches);
+            System.out.printf("  round %d: direct %6.0f bookings/ms, queued %6.0f bookings/ms"
+                              + " (%d batches)%n", round, direct, queued, batches.get());
+        }
+    }
+
+    // Creates a system with the default data plus the benchmark rooms
+    private static CampusSystem buildCampus() throws Exception {
+        CampusSystem campus = new CampusSystem();
+        for (int i = 0; i < ROOMS; i++) {
+            campus.addResource(new StudyRoom("QR" + i, "Queue Room " + i, 4), "admin");
+        }
+        return campus;
+    }
+
+    // Books through direct calls; returns bookings per millisecond
+    private static double runDirect(int threads, int bookings) throws Exception {
+        CampusSystem campus = buildCampus();
+        long start = System.nanoTime();
+        runThreads(threads, thread -> {
+            for (int i = 0; i < bookings; i++) {
+                int n = thread * bookings + i;
+                try {
+                    campus.makeReservation(roomFor(n), "user" + thread, dayFor(n), slotFor(n));
+                } catch (ReservationConflictException e) {
+                    // Slot already taken: counted like a queued booking that fails
+                }
+            }
+        });
+        return threads * bookings / ((System.nanoTime() - start) / 1e6);
+    }
+
+    // Books through a command queue; returns bookings per millisecond
+    private static double runQueued(int threads, int bookings, AtomicInteger batches)
+            throws Exception {
+        CampusSystem campus = buildCampus();
+        CommandQueue queue = new CommandQueue(campus, QUEUE_CAPACITY);
+        queue.setAfterBatch(batches::incrementAndGet);
+        long start = System.nanoTime();
+        runThreads(threads, thread -> {
+            CompletableFuture<Reservation> last = null;
+            for (int i = 0; i < bookings; i++) {
+                int n = thread * bookings + i;
+                last = queue.makeReservation(roomFor(n), "user" + thread, dayFor(n), slotFor(n));
+            }
+            // Commands run in order, so the last one finishing means all have
+            if (last != null) last.handle((reservation, e) -> null).join();
+        });
+        double rate = threads * bookings / ((System.nanoTime() - start) / 1e6);
+        queue.close();
+        return rate;
+    }
+
+    // Slot each booking number goes to
+    private static String roomFor(int n) { return "QR" + (n % ROOMS); }
+    private static int dayFor(int n) { return (n / ROOMS) % ResourceSchedule.DAYS_PER_WEEK; }
+    private static int slotFor(int n) {
+        return (n / (ROOMS * ResourceSchedule.DAYS_PER_WEEK)) % ResourceSchedule.SLOTS_PER_DAY;
+    }
+
+    // Work done by one benchmark thread
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    // Runs the body on each thread and waits for all of them
+    private static void runThreads(int threads, ThreadBody body) throws Exception {
+        List<Thread> started = new ArrayList<>();
+        List<Exception> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    body.run(thread);
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            started.add(worker);
+            worker.start();
+        }
+        for (Thread worker : started) worker.join();
+        if (!failures.isEmpty()) throw failures.get(0);
+    }
+}
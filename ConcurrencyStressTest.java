@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency stress test for reservations
+ * Many threads race to book the same time slot (exactly one may win), then
+ * book and cancel at random; afterwards every schedule must agree with the
+ * live reservations. Run: java ConcurrencyStressTest [threads] [rounds]
+ */
+public class ConcurrencyStressTest {
+    // Defaults used when no thread or round count is given on the command line
+    private static final int DEFAULT_THREADS = 32;
+    private static final int DEFAULT_ROUNDS = 200;
+    // Bookings or cancellations each thread makes in the mixed phase
+    private static final int MIXED_OPERATIONS = 2000;
+
+    // Number of failed checks
+    private static int failures;
+
+    // Program entry point; exits with status 1 if any check failed
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ROUNDS;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            System.out.println("\n=== SAME SLOT: " + threads + " THREADS x " + rounds + " ROUNDS ===");
+            runSameSlotRounds(pool, threads, rounds);
+            System.out.println("\n=== MIXED BOOKINGS AND CANCELLATIONS ===");
+            runMixed(pool, threads);
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println(failures == 0 ? "\nALL CHECKS PASSED" : "\n" + failures + " CHECK(S) FAILED");
+        if (failures > 0) System.exit(1);
+    }
+
+    // Each round, every thread tries to book the same slot as a different user
+    private static void runSameSlotRounds(ExecutorService pool, int threads, int rounds)
+            throws Exception {
+        CampusSystem campus = new CampusSystem();
+        int doubleBooked = 0;
+        for (int round = 0; round < rounds; round++) {
+            int day = round % ResourceSchedule.DAYS_PER_WEEK;
+            int slot = (round / ResourceSchedule.DAYS_PER_WEEK) % ResourceSchedule.SLOTS_PER_DAY;
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger booked = new AtomicInteger();
+            AtomicInteger conflicts = new AtomicInteger();
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String username = "racer" + t;
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        campus.makeReservation("SR101", username, day, slot);
+                        booked.incrementAndGet();
+                    } catch (ReservationConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : tasks) task.get();
+            if (booked.get() != 1 || conflicts.get() != threads - 1) doubleBooked++;
+            // Free the slot so the next round at this slot races again
+            Reservation winner = campus.getSchedule("SR101").getReservation(day, slot);
+            if (winner != null) campus.cancelReservation(winner.getReservationId(), "admin");
+        }
+        check(doubleBooked == 0, "exactly one booking per contested slot ("
+              + doubleBooked + " of " + rounds + " rounds wrong)");
+        checkConsistency(campus);
+    }
+
+    // Threads book random slots and cancel some of their bookings
+    private static void runMixed(ExecutorService pool, int threads) throws Exception {
+        CampusSystem campus = new CampusSystem();
+        List<String> resourceIds = new ArrayList<>();
+        for (CampusResource resource : campus.getResources()) {
+            resourceIds.add(resource.getId());
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String username = "mixer" + t;
+            Random random = new Random(t);
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < MIXED_OPERATIONS; i++) {
+                    try {
+                        Reservation reservation = campus.makeReservation(
+                            resourceIds.get(random.nextInt(resourceIds.size())), username,
+                            random.nextInt(ResourceSchedule.DAYS_PER_WEEK),
+                            random.nextInt(ResourceSchedule.SLOTS_PER_DAY));
+                        if (random.nextInt(3) > 0) {
+                            campus.cancelReservation(reservation.getReservationId(), username);
+                        }
+                    } catch (ReservationConflictException e) {
+                        // Slot taken by another thread: expected under contention
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> task : tasks) task.get();
+        checkConsistency(campus);
+    }
+
+    // Checks that schedules and live reservations describe the same bookings
+    private static void checkConsistency(CampusSystem campus) {
+        List<Reservation> active = campus.getActiveReservations();
+        Set<String> occupied = new HashSet<>();
+        Map<String, Integer> activePerResource = new HashMap<>();
+        boolean unique = true;
+        boolean inSchedule = true;
+        for (Reservation reservation : active) {
+            String resourceId = reservation.getResourceId();
+            unique &= occupied.add(resourceId + "/" + reservation.getDayIndex()
+                                   + "/" + reservation.getSlotIndex());
+            inSchedule &= campus.getSchedule(resourceId).getReservation(
+                reservation.getDayIndex(), reservation.getSlotIndex()) == reservation;
+            activePerResource.merge(resourceId, 1, Integer::sum);
+        }
+        boolean countsMatch = true;
+        for (ResourceSchedule schedule : campus.getSchedules()) {
+            int expected = activePerResource.getOrDefault(schedule.getResourceId(), 0);
+            countsMatch &= schedule.getReservedSlotCount() == expected
+                           && schedule.getAllReservations().size() == expected;
+        }
+        check(unique, "no two active reservations share a slot (" + active.size() + " active)");
+        check(inSchedule, "every active reservation holds its schedule slot");
+        check(countsMatch, "schedule occupancy matches the active reservations");
+    }
+
+    // Prints a check's outcome and counts failures
+    private static void check(boolean passed, String description) {
+        System.out.println((passed ? "  PASS  " : "  FAIL  ") + description);
+        if (!passed) failures++;
+    }
+}
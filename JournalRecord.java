@@ -0,0 +1,202 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * One change to a CampusSystem as written to its journal
+ * Records hold the outcome of a change (e.g. the ID a reservation was given),
+ * so replaying them rebuilds exactly the state the original calls produced
+ */
+public class JournalRecord {
+    // Kinds of change the journal records
+    public enum Type { ADD_USER, ADD_RESOURCE, EDIT_RESOURCE, REMOVE_RESOURCE, RESERVE, CANCEL }
+
+    // Kind of change
+    private final Type type;
+    // Main key: username, resource ID or reservation ID depending on the type
+    private final String key;
+    // Resource ID of a reservation, or the ID given to a new user
+    private final String reference;
+    // Username of a reservation, or the (new) name of a resource
+    private final String name;
+    // Equipment type of lab equipment (null = none / unchanged)
+    private final String equipmentType;
+    // Study room capacity (0 = none / unchanged)
+    private final int capacity;
+    // Day and time slot of a reservation
+    private final int dayIndex;
+    private final int slotIndex;
+    // Administrator flag of a new user, or study room (true) vs lab equipment of a new resource
+    private final boolean flag;
+
+    // Constructor used by the factory methods and the decoder
+    private JournalRecord(Type type, String key, String reference, String name,
+                          String equipmentType, int capacity, int dayIndex, int slotIndex,
+                          boolean flag) {
+        this.type = type;
+        this.key = key;
+        this.reference = reference;
+        this.name = name;
+        this.equipmentType = equipmentType;
+        this.capacity = capacity;
+        this.dayIndex = dayIndex;
+        this.slotIndex = slotIndex;
+        this.flag = flag;
+    }
+
+    // ========== FACTORY METHODS ==========
+
+    // Records a newly registered user
+    public static JournalRecord addUser(User user) {
+        return new JournalRecord(Type.ADD_USER, user.getUsername(), user.getUserId(), null,
+                                 null, 0, 0, 0, user.canManageResources());
+    }
+
+    // Records a newly added resource with its type-specific details
+    public static JournalRecord addResource(CampusResource resource) {
+        if (resource instanceof StudyRoom) {
+            return new JournalRecord(Type.ADD_RESOURCE, resource.getId(), null, resource.getName(),
+                                     null, ((StudyRoom) resource).getCapacity(), 0, 0, true);
+        }
+        if (resource instanceof LabEquipment) {
+            return new JournalRecord(Type.ADD_RESOURCE, resource.getId(), null, resource.getName(),
+                                     ((LabEquipment) resource).getEquipmentType(), 0, 0, 0, false);
+        }
+        throw new IllegalArgumentException("Unsupported resource type: " + resource.getType());
+    }
+
+    // Records an edit as requested (null name/type and null capacity mean unchanged)
+    public static JournalRecord editResource(String resourceId, String newName,
+                                             Integer newCapacity, String newType) {
+        return new JournalRecord(Type.EDIT_RESOURCE, resourceId, null, newName, newType,
+                                 newCapacity == null ? 0 : newCapacity, 0, 0, false);
+    }
+
+    // Records a removed resource
+    public static JournalRecord removeResource(String resourceId) {
+        return new JournalRecord(Type.REMOVE_RESOURCE, resourceId, null, null, null, 0, 0, 0, false);
+    }
+
+    // Records a booked reservation
+    public static JournalRecord reserve(Reservation reservation) {
+        return new JournalRecord(Type.RESERVE, reservation.getReservationId(),
+                                 reservation.getResourceId(), reservation.getUsername(), null, 0,
+                                 reservation.getDayIndex(), reservation.getSlotIndex(), false);
+    }
+
+    // Records a cancelled reservation
+    public static JournalRecord cancel(String reservationId) {
+        return new JournalRecord(Type.CANCEL, reservationId, null, null, null, 0, 0, 0, false);
+    }
+
+    // ========== GETTERS ==========
+
+    // Returns the kind of change
+    public Type getType() { return type; }
+    // Returns the username, resource ID or reservation ID the change applies to
+    public String getKey() { return key; }
+    // Returns the reserved resource ID, or the new user's ID
+    public String getReference() { return reference; }
+    // Returns the reservation's username, or the resource name
+    public String getName() { return name; }
+    // Returns the equipment type (null = none / unchanged)
+    public String getEquipmentType() { return equipmentType; }
+    // Returns the capacity, or null if none / unchanged
+    public Integer getCapacity() { return capacity > 0 ? capacity : null; }
+    // Returns the reserved day index
+    public int getDayIndex() { return dayIndex; }
+    // Returns the reserved time slot index
+    public int getSlotIndex() { return slotIndex; }
+    // Returns true for a new administrator, or a new study room
+    public boolean getFlag() { return flag; }
+
+    // ========== ENCODING ==========
+
+    // Writes the record's fields (only those its type uses)
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeUTF(key);
+        switch (type) {
+            case ADD_USER:
+                out.writeUTF(reference);
+                out.writeBoolean(flag);
+                break;
+            case ADD_RESOURCE:
+                writeOptional(out, name);
+                out.writeBoolean(flag);
+                if (flag) {
+                    out.writeInt(capacity);
+                } else {
+                    writeOptional(out, equipmentType);
+                }
+                break;
+            case EDIT_RESOURCE:
+                writeOptional(out, name);
+                out.writeInt(capacity);
+                writeOptional(out, equipmentType);
+                break;
+            case RESERVE:
+                out.writeUTF(reference);
+                out.writeUTF(name);
+                out.writeByte(dayIndex);
+                out.writeByte(slotIndex);
+                break;
+            default:
+                break;  // REMOVE_RESOURCE and CANCEL need only the key
+        }
+    }
+
+    // Reads a record written by writeTo
+    public static JournalRecord readFrom(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= Type.values().length) {
+            throw new IOException("Unknown journal record type: " + ordinal);
+        }
+        Type type = Type.values()[ordinal];
+        String key = in.readUTF();
+        switch (type) {
+            case ADD_USER: {
+                String userId = in.readUTF();
+                return new JournalRecord(type, key, userId, null, null, 0, 0, 0, in.readBoolean());
+            }
+            case ADD_RESOURCE: {
+                String name = readOptional(in);
+                boolean room = in.readBoolean();
+                int capacity = room ? in.readInt() : 0;
+                String equipmentType = room ? null : readOptional(in);
+                return new JournalRecord(type, key, null, name, equipmentType, capacity, 0, 0, room);
+            }
+            case EDIT_RESOURCE: {
+                String name = readOptional(in);
+                int capacity = in.readInt();
+                return new JournalRecord(type, key, null, name, readOptional(in), capacity, 0, 0, false);
+            }
+            case RESERVE: {
+                String resourceId = in.readUTF();
+                String username = in.readUTF();
+                int day = in.readUnsignedByte();
+                int slot = in.readUnsignedByte();
+                return new JournalRecord(type, key, resourceId, username, null, 0, day, slot, false);
+            }
+            default:
+                return new JournalRecord(type, key, null, null, null, 0, 0, 0, false);
+        }
+    }
+
+    // Writes a string that may be null
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    // Reads a string written by writeOptional
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @Override
+    // Provides a short description of the record
+    public String toString() {
+        return type + " " + key;
+    }
+}
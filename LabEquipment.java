@@ -3,6 +3,9 @@
  * Examples: Microscopes, Bunsen Burners, 3D Printers
  */
 public class LabEquipment extends CampusResource {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = 5234033567460983025L;
+    
     // Type of equipment (e.g., "Biology", "Chemistry", "Engineering")
     private String equipmentType;
     
@@ -24,8 +27,8 @@ public class LabEquipment extends CampusResource {
     }
     
     @Override
-    public String getResourceType() { 
-        return "Lab Equipment"; 
+    public ResourceType getType() { 
+        return ResourceType.LAB_EQUIPMENT; 
     }
     
     @Override
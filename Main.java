@@ -1,11 +1,15 @@
 import java.util.Scanner;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main entry point for Campus Resource Reservation System
  * Provides dual mode: Interactive system or comprehensive testing
  */
 public class Main {
+    // Changes waiting, or seconds with changes waiting, between background saves
+    private static final long AUTOSAVE_CHANGES = 20;
+    private static final long AUTOSAVE_SECONDS = 5;
     
     // Main method - program entry point
     public static void main(String[] args) {
@@ -71,10 +75,18 @@ public class Main {
         
         // Create and run menu system
         CampusMenu menu = new CampusMenu(campus);
+        // Journal every change and save in the background, so a crash loses
+        // at most a few seconds of the session without menu actions waiting
+        // for the disk (a system loaded from the menu is saved the same way)
+        menu.startAutosave("campus_system.txt", AUTOSAVE_CHANGES, AUTOSAVE_SECONDS,
+                           TimeUnit.SECONDS);
+        // Save what is waiting on Ctrl+C / SIGTERM
+        Runtime.getRuntime().addShutdownHook(new Thread(menu::stopAutosave));
         menu.run();
         
-        // Auto-save system state on exit
-        autoSaveSystem(campus);
+        // Auto-save the menu's current system state on exit
+        menu.stopAutosave();
+        autoSaveSystem(menu.getCampus());
     }
     
     // Automatically saves system to default file on exit
@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Archived reservation records kept in a memory-mapped file
+ * Records are fixed-size and only ever appended, so a record never moves
+ * or changes once written; opening a file maps it without reading it, and
+ * the OS pages records in as they are touched.
+ *
+ * File layout: a header (magic number, file ID) followed by records of
+ * (ID number, resource ref, user ref, day, slot). How many records are
+ * valid is not stored here: the save file referring to this one records
+ * the count it was written with, and anything after that is ignored.
+ *
+ * Thread-safe: appends synchronize on the file; reads of records below
+ * the count a reader was given need no locking.
+ */
+public class MappedArchiveFile {
+    // Identifies an archive file ("SCRA")
+    private static final int MAGIC = 0x53435241;
+    // Bytes in the header: magic number and file ID
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    // Bytes per record: ID number, resource ref, user ref, day, slot, padding
+    private static final int RECORD_BYTES = 16;
+    // Records per mapped chunk (the file grows one chunk at a time)
+    private static final int CHUNK_RECORDS = 1 << 16;
+    private static final int CHUNK_BYTES = CHUNK_RECORDS * RECORD_BYTES;
+
+    // File location
+    private final Path path;
+    // Random ID written into the header; save files store it to check they
+    // are opened with their own archive file
+    private final long fileId;
+    // Mapped chunks, replaced by a longer copy when the file grows
+    private volatile MappedByteBuffer[] chunks;
+    // Number of records appended (guarded by this)
+    private int count;
+    // First chunk holding records not yet forced to disk (guarded by this)
+    private int firstDirtyChunk;
+
+    // Constructor used by create and open
+    private MappedArchiveFile(Path path, long fileId, MappedByteBuffer[] chunks, int count) {
+        this.path = path;
+        this.fileId = fileId;
+        this.chunks = chunks;
+        this.count = count;
+        this.firstDirtyChunk = count / CHUNK_RECORDS;
+    }
+
+    // Creates an empty archive file, replacing any file at the path
+    public static MappedArchiveFile create(Path path) throws IOException {
+        long fileId = ThreadLocalRandom.current().nextLong();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putLong(fileId).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            channel.force(true);
+        }
+        return new MappedArchiveFile(path, fileId, new MappedByteBuffer[0], 0);
+    }
+
+    // Maps an existing archive file holding count valid records; fails if
+    // it is not the file with the given ID or has fewer records
+    public static MappedArchiveFile open(Path path, long fileId, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC
+                    || header.getLong() != fileId) {
+                throw new IOException("Archive file does not belong to this save file: " + path);
+            }
+            if (channel.size() < HEADER_BYTES + (long) count * RECORD_BYTES) {
+                throw new IOException("Archive file is missing records: " + path);
+            }
+            int chunkCount = (int) ((channel.size() - HEADER_BYTES + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                chunks[i] = mapChunk(channel, i);
+            }
+            return new MappedArchiveFile(path, fileId, chunks, count);
+        }
+    }
+
+    // Maps one chunk of the file, extending the file if it is shorter
+    private static MappedByteBuffer mapChunk(FileChannel channel, int chunk) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE,
+                           HEADER_BYTES + (long) chunk * CHUNK_BYTES, CHUNK_BYTES);
+    }
+
+    // Returns the file location
+    public Path getPath() { return path; }
+
+    // Returns the ID written into the file's header
+    public long getFileId() { return fileId; }
+
+    // Returns the number of records appended
+    public synchronized int size() { return count; }
+
+    // Appends a record; returns its index
+    public synchronized int append(int sequence, int resourceRef, int userRef, int day, int slot)
+            throws IOException {
+        int chunk = count / CHUNK_RECORDS;
+        if (chunk == chunks.length) grow();
+        ByteBuffer buffer = chunks[chunk];
+        int offset = (count % CHUNK_RECORDS) * RECORD_BYTES;
+        buffer.putInt(offset, sequence);
+        buffer.putInt(offset + 4, resourceRef);
+        buffer.putInt(offset + 8, userRef);
+        buffer.put(offset + 12, (byte) day);
+        buffer.put(offset + 13, (byte) slot);
+        return count++;
+    }
+
+    // Maps one more chunk (the chunk array is replaced, not modified, so
+    // readers holding the old one still see valid records)
+    private void grow() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = mapChunk(channel, chunks.length);
+            chunks = grown;
+        }
+    }
+
+    // Forces every record appended so far to disk
+    public synchronized void force() {
+        MappedByteBuffer[] mapped = chunks;
+        int lastChunk = Math.min((count - 1) / CHUNK_RECORDS, mapped.length - 1);
+        for (int i = firstDirtyChunk; i <= lastChunk; i++) {
+            mapped[i].force();
+        }
+        firstDirtyChunk = Math.max(lastChunk, 0);
+    }
+
+    // Returns the ID number of a record
+    public int getSequence(int index) { return chunkOf(index).getInt(offsetOf(index)); }
+    // Returns the resource ref of a record
+    public int getResourceRef(int index) { return chunkOf(index).getInt(offsetOf(index) + 4); }
+    // Returns the user ref of a record
+    public int getUserRef(int index) { return chunkOf(index).getInt(offsetOf(index) + 8); }
+    // Returns the day index of a record
+    public int getDay(int index) { return chunkOf(index).get(offsetOf(index) + 12); }
+    // Returns the time slot index of a record
+    public int getSlot(int index) { return chunkOf(index).get(offsetOf(index) + 13); }
+
+    // Returns the chunk holding a record
+    private ByteBuffer chunkOf(int index) {
+        return chunks[index / CHUNK_RECORDS];
+    }
+
+    // Returns a record's byte offset within its chunk
+    private static int offsetOf(int index) {
+        return (index % CHUNK_RECORDS) * RECORD_BYTES;
+    }
+}
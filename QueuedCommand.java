@@ -0,0 +1,49 @@
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A command waiting in a CommandQueue together with the future its caller holds
+ * The writer runs it, then completes the future once the batch it ran in
+ * has been synced to the journal.
+ */
+class QueuedCommand<T> {
+    // Work to run and the future receiving its outcome
+    private final CampusCommand<T> command;
+    private final CompletableFuture<T> future;
+    // Outcome of run: the result, or what the command threw
+    private T result;
+    private Throwable failure;
+
+    // Constructor pairs a command with its caller's future
+    QueuedCommand(CampusCommand<T> command, CompletableFuture<T> future) {
+        this.command = command;
+        this.future = future;
+    }
+
+    // Runs the command and keeps its result or whatever it threw (errors
+    // included, so a failing command cannot stop the writer)
+    void run(CampusSystem campus) {
+        try {
+            result = command.run(campus);
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    // Completes the future with the outcome of run; a command that succeeded
+    // fails instead if its batch could not be journaled (syncFailure)
+    void complete(Throwable syncFailure) {
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else if (syncFailure != null) {
+            future.completeExceptionally(syncFailure);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    // Completes the future with an exception without running the command
+    // (does nothing if it has already been completed)
+    void fail(Throwable e) {
+        future.completeExceptionally(e);
+    }
+}
@@ -5,6 +5,9 @@ import java.io.Serializable;
  * Core object in ownership transfer between user and schedule
  */
 public class Reservation implements Serializable {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = -5814472004245378262L;
+    
     // Unique identifier for the reservation (e.g., RES-001)
     private String reservationId;
     // The resource being reserved
@@ -15,8 +18,11 @@ public class Reservation implements Serializable {
     private int dayIndex;
     // Time slot index (0=8:00-10:00 through 7=23:00-1:00)
     private int slotIndex;
-    // Active status (true=active, false=cancelled)
-    private boolean active;
+    // Active status (true=active, false=cancelled); volatile so readers on
+    // other threads see a cancellation as soon as it happens
+    private volatile boolean active;
+    // Numeric part of the ID, worked out on first use (not saved; 0 = not yet known)
+    private transient long sequence;
     
     // Constructor creates new active reservation
     public Reservation(String reservationId, CampusResource resource, 
@@ -44,6 +50,23 @@ public class Reservation implements Serializable {
     // Returns whether reservation is still active (not cancelled)
     public boolean isActive() { return active; }
     
+    // Returns the numeric part of this reservation's ID (see sequenceOf)
+    public long getSequence() {
+        if (sequence == 0) sequence = sequenceOf(reservationId);
+        return sequence;
+    }
+    
+    // Returns the numeric part of a "RES-n" ID, or -1 if the ID has another form
+    public static long sequenceOf(String reservationId) {
+        if (reservationId == null || !reservationId.startsWith("RES-")) return -1;
+        try {
+            long sequence = Long.parseLong(reservationId.substring(4));
+            return sequence >= 0 ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
     // Cancels the reservation (marks as inactive)
     public void cancel() {
         active = false;
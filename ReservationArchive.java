@@ -0,0 +1,415 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compact append-only store for cancelled reservations
+ * Keeps history as parallel primitive arrays and rebuilds Reservation
+ * objects only when a history or export query asks for them
+ * For long histories the records can be moved into a memory-mapped file
+ * instead (see moveToFile): loading then maps the file rather than reading
+ * every record, and only the records a query touches are paged in
+ * Thread-safe: every public method synchronizes on the archive
+ */
+public class ReservationArchive implements Serializable {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = -8341550206492913646L;
+
+    // Starting size of the record arrays
+    private static final int INITIAL_CAPACITY = 64;
+
+    // One entry per archived reservation, in archive order
+    private long[] sequences;       // numeric part of "RES-n"
+    private int[] resourceRefs;     // position in resourceTable
+    private int[] userRefs;         // position in userTable
+    private byte[] days;
+    private byte[] slots;
+    // Number of archived reservations
+    private int size;
+
+    // Distinct resources and usernames referenced by the records
+    private List<CampusResource> resourceTable;
+    private List<String> userTable;
+    // Sequence numbers present in the archive, for quick membership checks
+    private BitSet archivedSequences;
+
+    // File holding the records in place of the arrays (null = records are
+    // in the arrays); copies of the archive share it
+    private transient MappedArchiveFile mapped;
+
+    // Reverse lookups into the tables (rebuilt on first use after loading)
+    private transient Map<CampusResource, Integer> resourceRefIndex;
+    private transient Map<String, Integer> userRefIndex;
+
+    // Constructor creates an empty archive
+    public ReservationArchive() {
+        sequences = new long[INITIAL_CAPACITY];
+        resourceRefs = new int[INITIAL_CAPACITY];
+        userRefs = new int[INITIAL_CAPACITY];
+        days = new byte[INITIAL_CAPACITY];
+        slots = new byte[INITIAL_CAPACITY];
+        resourceTable = new ArrayList<>();
+        userTable = new ArrayList<>();
+        archivedSequences = new BitSet();
+    }
+
+    // Returns number of archived reservations
+    public synchronized int size() { return size; }
+
+    // Returns an independent copy of the archive's current contents (a
+    // mapped archive's copy reads the same file, as records there never change)
+    public synchronized ReservationArchive copy() {
+        ReservationArchive copy = new ReservationArchive();
+        copy.mapped = mapped;
+        copy.sequences = Arrays.copyOf(sequences, sequences.length);
+        copy.resourceRefs = Arrays.copyOf(resourceRefs, resourceRefs.length);
+        copy.userRefs = Arrays.copyOf(userRefs, userRefs.length);
+        copy.days = Arrays.copyOf(days, days.length);
+        copy.slots = Arrays.copyOf(slots, slots.length);
+        copy.size = size;
+        copy.resourceTable = new ArrayList<>(resourceTable);
+        copy.userTable = new ArrayList<>(userTable);
+        copy.archivedSequences = (BitSet) archivedSequences.clone();
+        return copy;
+    }
+
+    // Checks whether a reservation can be archived (IDs must be "RES-n")
+    public static boolean canArchive(Reservation reservation) {
+        String id = reservation.getReservationId();
+        long sequence = Reservation.sequenceOf(id);
+        // Records keep only the number, so the ID must round-trip exactly
+        return sequence >= 0 && sequence <= Integer.MAX_VALUE && id.equals("RES-" + sequence);
+    }
+
+    // Appends a cancelled reservation to the archive
+    public synchronized void add(Reservation reservation) {
+        if (!canArchive(reservation)) {
+            throw new IllegalArgumentException(
+                "Cannot archive reservation ID: " + reservation.getReservationId());
+        }
+        long sequence = Reservation.sequenceOf(reservation.getReservationId());
+        int resourceRef = resourceRef(reservation.getResource());
+        int userRef = userRef(reservation.getUsername());
+        if (mapped != null) {
+            appendToFile((int) sequence, resourceRef, userRef,
+                         reservation.getDayIndex(), reservation.getSlotIndex());
+        } else {
+            if (size == sequences.length) {
+                grow();
+            }
+            sequences[size] = sequence;
+            resourceRefs[size] = resourceRef;
+            userRefs[size] = userRef;
+            days[size] = (byte) reservation.getDayIndex();
+            slots[size] = (byte) reservation.getSlotIndex();
+        }
+        size++;
+        archivedSequences.set((int) sequence);
+    }
+
+    // Checks whether a reservation ID is in the archive
+    public synchronized boolean contains(String reservationId) {
+        long sequence = Reservation.sequenceOf(reservationId);
+        return sequence >= 0 && sequence <= Integer.MAX_VALUE
+               && archivedSequences.get((int) sequence);
+    }
+
+    // Finds an archived reservation by ID, returns null if not archived
+    public synchronized Reservation find(String reservationId) {
+        if (!contains(reservationId)) return null;
+        long sequence = Reservation.sequenceOf(reservationId);
+        for (int i = 0; i < size; i++) {
+            if (sequenceAt(i) == sequence) {
+                return materialize(i);
+            }
+        }
+        return null;
+    }
+
+    // Returns the archived reservation at one record position
+    public synchronized Reservation get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Archive position: " + position);
+        }
+        return materialize(position);
+    }
+
+    // Returns the ID number of the reservation at one record position
+    public synchronized long getSequence(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Archive position: " + position);
+        }
+        return sequenceAt(position);
+    }
+
+    // Returns the record positions ordered by reservation ID number
+    public synchronized int[] positionsBySequence() {
+        // Sort (number, position) pairs packed into longs; records are
+        // appended mostly in order, so this is close to a linear pass
+        long[] keyed = new long[size];
+        for (int i = 0; i < size; i++) {
+            keyed[i] = sequenceAt(i) << 32 | i;
+        }
+        Arrays.sort(keyed);
+        int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = (int) keyed[i];
+        }
+        return positions;
+    }
+
+    // Returns all archived reservations as cancelled Reservation objects
+    public synchronized List<Reservation> getAll() {
+        List<Reservation> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(materialize(i));
+        }
+        return all;
+    }
+
+    // Rebuilds the Reservation stored at one record position
+    private Reservation materialize(int index) {
+        Reservation reservation = new Reservation("RES-" + sequenceAt(index),
+            resourceTable.get(resourceRefAt(index)), userTable.get(userRefAt(index)),
+            dayAt(index), slotAt(index));
+        reservation.cancel();
+        return reservation;
+    }
+
+    // Record fields at one position, read from the mapped file or the arrays
+    // Returns the ID number of a record
+    private long sequenceAt(int index) {
+        return mapped != null ? mapped.getSequence(index) : sequences[index];
+    }
+    // Returns the resource table position of a record
+    private int resourceRefAt(int index) {
+        return mapped != null ? mapped.getResourceRef(index) : resourceRefs[index];
+    }
+    // Returns the user table position of a record
+    private int userRefAt(int index) {
+        return mapped != null ? mapped.getUserRef(index) : userRefs[index];
+    }
+    // Returns the day index of a record
+    private int dayAt(int index) {
+        return mapped != null ? mapped.getDay(index) : days[index];
+    }
+    // Returns the time slot index of a record
+    private int slotAt(int index) {
+        return mapped != null ? mapped.getSlot(index) : slots[index];
+    }
+
+    // Appends a record to the mapped file
+    private void appendToFile(int sequence, int resourceRef, int userRef, int day, int slot) {
+        // A copy sharing the file must not append to it
+        if (mapped.size() != size) {
+            throw new IllegalStateException("Archive copy cannot be added to");
+        }
+        try {
+            mapped.append(sequence, resourceRef, userRef, day, slot);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive reservation", e);
+        }
+    }
+
+    // Moves the records into a new memory-mapped file, where later records
+    // are appended too; does nothing if they are already kept in that file
+    public synchronized void moveToFile(Path path) throws IOException {
+        if (mapped != null && mapped.getPath().equals(path)) return;
+        MappedArchiveFile file = MappedArchiveFile.create(path);
+        for (int i = 0; i < size; i++) {
+            file.append((int) sequenceAt(i), resourceRefAt(i), userRefAt(i), dayAt(i), slotAt(i));
+        }
+        file.force();
+        mapped = file;
+        sequences = new long[0];
+        resourceRefs = new int[0];
+        userRefs = new int[0];
+        days = new byte[0];
+        slots = new byte[0];
+    }
+
+    // Serializes a mapped archive as a copy holding its records in the
+    // arrays, since the file is not part of the serialized form
+    private Object writeReplace() {
+        return mapped == null ? this : inlineCopy();
+    }
+
+    // Returns a copy of the archive with every record read into the arrays
+    private synchronized ReservationArchive inlineCopy() {
+        ReservationArchive copy = new ReservationArchive();
+        int capacity = Math.max(INITIAL_CAPACITY, size);
+        copy.sequences = new long[capacity];
+        copy.resourceRefs = new int[capacity];
+        copy.userRefs = new int[capacity];
+        copy.days = new byte[capacity];
+        copy.slots = new byte[capacity];
+        for (int i = 0; i < size; i++) {
+            copy.sequences[i] = sequenceAt(i);
+            copy.resourceRefs[i] = resourceRefAt(i);
+            copy.userRefs[i] = userRefAt(i);
+            copy.days[i] = (byte) dayAt(i);
+            copy.slots[i] = (byte) slotAt(i);
+        }
+        copy.size = size;
+        copy.resourceTable = new ArrayList<>(resourceTable);
+        copy.userTable = new ArrayList<>(userTable);
+        copy.archivedSequences = (BitSet) archivedSequences.clone();
+        return copy;
+    }
+
+    // Returns the table position of a resource, adding it if new
+    private int resourceRef(CampusResource resource) {
+        if (resourceRefIndex == null) {
+            resourceRefIndex = new IdentityHashMap<>();
+            for (int i = 0; i < resourceTable.size(); i++) {
+                resourceRefIndex.put(resourceTable.get(i), i);
+            }
+        }
+        Integer ref = resourceRefIndex.get(resource);
+        if (ref == null) {
+            ref = resourceTable.size();
+            resourceTable.add(resource);
+            resourceRefIndex.put(resource, ref);
+        }
+        return ref;
+    }
+
+    // Returns the table position of a username, adding it if new
+    private int userRef(String username) {
+        if (userRefIndex == null) {
+            userRefIndex = new HashMap<>();
+            for (int i = 0; i < userTable.size(); i++) {
+                userRefIndex.put(userTable.get(i), i);
+            }
+        }
+        Integer ref = userRefIndex.get(username);
+        if (ref == null) {
+            ref = userTable.size();
+            userTable.add(username);
+            userRefIndex.put(username, ref);
+        }
+        return ref;
+    }
+
+    // Returns the distinct resources the records refer to
+    public synchronized List<CampusResource> getResourceTable() {
+        return new ArrayList<>(resourceTable);
+    }
+
+    // Returns the distinct usernames the records refer to
+    public synchronized List<String> getUserTable() {
+        return new ArrayList<>(userTable);
+    }
+
+    // Writes the records for a binary save file (see SaveFileCodec), with
+    // resources and usernames given as their positions in the file's tables.
+    // Records kept in the archive file belonging to the save file are not
+    // copied: it is synced and referred to by its ID and record count
+    public synchronized void writeTo(DataOutputStream out, ToIntFunction<CampusResource> resourcePositions,
+                                     ToIntFunction<String> userPositions, Path archivePath)
+            throws IOException {
+        boolean inFile = mapped != null && mapped.getPath().equals(archivePath);
+        out.writeBoolean(inFile);
+        out.writeInt(resourceTable.size());
+        for (CampusResource resource : resourceTable) out.writeInt(resourcePositions.applyAsInt(resource));
+        out.writeInt(userTable.size());
+        for (String username : userTable) out.writeInt(userPositions.applyAsInt(username));
+        out.writeInt(size);
+        if (inFile) {
+            mapped.force();
+            out.writeLong(mapped.getFileId());
+            long[] words = archivedSequences.toLongArray();
+            out.writeInt(words.length);
+            for (long word : words) out.writeLong(word);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            out.writeInt((int) sequenceAt(i));
+            out.writeInt(resourceRefAt(i));
+            out.writeInt(userRefAt(i));
+            out.writeByte(dayAt(i));
+            out.writeByte(slotAt(i));
+        }
+    }
+
+    // Reads records written by writeTo for a save file of the given format
+    // version, resolving references against the file's tables and mapping
+    // the archive file at archivePath if the records were left there
+    public static ReservationArchive readFrom(DataInputStream in, int version,
+                                              List<CampusResource> resources, List<String> usernames,
+                                              Path archivePath) throws IOException {
+        ReservationArchive archive = new ReservationArchive();
+        // Version 1 files always hold the records themselves
+        boolean inFile = version >= 2 && in.readBoolean();
+        int resourceCount = in.readInt();
+        for (int i = 0; i < resourceCount; i++) {
+            archive.resourceTable.add(resources.get(checkRef(in.readInt(), resources.size())));
+        }
+        int userCount = in.readInt();
+        for (int i = 0; i < userCount; i++) {
+            archive.userTable.add(usernames.get(checkRef(in.readInt(), usernames.size())));
+        }
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Corrupt archive size: " + count);
+        if (inFile) {
+            long fileId = in.readLong();
+            int wordCount = in.readInt();
+            if (wordCount < 0) throw new IOException("Corrupt archive size: " + wordCount);
+            long[] words = new long[wordCount];
+            for (int i = 0; i < wordCount; i++) words[i] = in.readLong();
+            archive.archivedSequences = BitSet.valueOf(words);
+            archive.mapped = MappedArchiveFile.open(archivePath, fileId, count);
+            archive.sequences = new long[0];
+            archive.resourceRefs = new int[0];
+            archive.userRefs = new int[0];
+            archive.days = new byte[0];
+            archive.slots = new byte[0];
+            archive.size = count;
+            return archive;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(count, 1)) * 2);
+        archive.sequences = new long[capacity];
+        archive.resourceRefs = new int[capacity];
+        archive.userRefs = new int[capacity];
+        archive.days = new byte[capacity];
+        archive.slots = new byte[capacity];
+        for (int i = 0; i < count; i++) {
+            int sequence = checkRef(in.readInt(), Integer.MAX_VALUE);
+            archive.sequences[i] = sequence;
+            archive.resourceRefs[i] = checkRef(in.readInt(), archive.resourceTable.size());
+            archive.userRefs[i] = checkRef(in.readInt(), archive.userTable.size());
+            archive.days[i] = (byte) checkRef(in.readByte(), ResourceSchedule.DAYS_PER_WEEK);
+            archive.slots[i] = (byte) checkRef(in.readByte(), ResourceSchedule.SLOTS_PER_DAY);
+            archive.archivedSequences.set(sequence);
+        }
+        archive.size = count;
+        return archive;
+    }
+
+    // Checks a position read from a file is in range
+    private static int checkRef(int ref, int size) throws IOException {
+        if (ref < 0 || ref >= size) throw new IOException("Corrupt archive reference: " + ref);
+        return ref;
+    }
+
+    // Doubles the capacity of the record arrays
+    private void grow() {
+        int capacity = sequences.length * 2;
+        sequences = Arrays.copyOf(sequences, capacity);
+        resourceRefs = Arrays.copyOf(resourceRefs, capacity);
+        userRefs = Arrays.copyOf(userRefs, capacity);
+        days = Arrays.copyOf(days, capacity);
+        slots = Arrays.copyOf(slots, capacity);
+    }
+}
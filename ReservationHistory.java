@@ -0,0 +1,67 @@
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only reservation history: live and archived reservations merged
+ * in booking order (by ID number)
+ * Archived entries are rebuilt from their records each time they are read
+ * (flyweight views), so holding the history costs one object per live
+ * reservation plus one int per archived one, and a history kept in a
+ * memory-mapped archive only pages in the records that are read
+ */
+public class ReservationHistory extends AbstractList<Reservation> implements RandomAccess {
+    // Live reservations in booking order
+    private final List<Reservation> live;
+    // Archive copy holding the cancelled reservations moved out of the live set
+    private final ReservationArchive archived;
+    // Merged order, worked out on first read: an entry >= 0 is an archive
+    // position, an entry < 0 is a live list index (-1 - index)
+    private int[] order;
+
+    // Constructor takes live reservations already sorted in booking order
+    // and an archive copy no one else adds to
+    public ReservationHistory(List<Reservation> live, ReservationArchive archived) {
+        this.live = live;
+        this.archived = archived;
+    }
+
+    @Override
+    // Returns the number of reservations, live and archived
+    public int size() {
+        return live.size() + archived.size();
+    }
+
+    @Override
+    // Returns the reservation at a position in booking order
+    public Reservation get(int index) {
+        int entry = order()[index];
+        return entry >= 0 ? archived.get(entry) : live.get(-1 - entry);
+    }
+
+    // Returns the merged order, merging the two sorted sequences on first use
+    private synchronized int[] order() {
+        if (order == null) {
+            int[] archivePositions = archived.positionsBySequence();
+            int[] merged = new int[live.size() + archivePositions.length];
+            int a = 0;
+            int l = 0;
+            for (int i = 0; i < merged.length; i++) {
+                boolean takeArchive = l == live.size() || (a < archivePositions.length
+                    && comesFirst(archived.getSequence(archivePositions[a]), live.get(l)));
+                merged[i] = takeArchive ? archivePositions[a++] : -1 - l++;
+            }
+            order = merged;
+        }
+        return order;
+    }
+
+    // Checks whether an archived reservation sorts before (or level with) a
+    // live one: by ID number, then by ID as CampusSystem orders reservations
+    private static boolean comesFirst(long archivedSequence, Reservation reservation) {
+        if (archivedSequence != reservation.getSequence()) {
+            return archivedSequence < reservation.getSequence();
+        }
+        return ("RES-" + archivedSequence).compareTo(reservation.getReservationId()) <= 0;
+    }
+}
@@ -0,0 +1,370 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the changes made to a CampusSystem since its
+ * save file was last written
+ *
+ * Every record has a position: one more than the record before it, counting
+ * from the journal's creation. A save file stores its generation (which
+ * journal it belongs to) and the position it was written at; only later
+ * records are replayed on top of it.
+ *
+ * File layout: a header (magic number, generation, position of the record
+ * before the first) followed by frames of (length, CRC-32, record bytes).
+ * A torn or corrupt frame at the end (from a crash mid-write) ends the journal.
+ *
+ * Group commit: append only buffers a record in memory; awaitDurable writes
+ * out everything buffered so far and forces it to disk with a single fsync.
+ * Threads that append while an fsync is running are all covered by the next
+ * one, so concurrent changes share disk syncs instead of queueing for one each.
+ */
+public class ReservationJournal implements AutoCloseable {
+    // Identifies a journal file ("SCRJ")
+    private static final int MAGIC = 0x5343524A;
+    // Bytes in the header: magic number, generation and base position
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES * 2;
+    // Bytes before each record: length and checksum
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES * 2;
+    // Largest record accepted when reading (guards against garbage lengths)
+    private static final int MAX_RECORD_BYTES = 1 << 16;
+
+    // Journal file location
+    private final Path path;
+    // Generation (save file lineage) this journal belongs to
+    private final long generation;
+    // Open file, positioned at its end; replaced when the journal is
+    // truncated (guarded by flushLock)
+    private FileChannel channel;
+
+    // Encoded frames not yet written to the file (guarded by this)
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    // Scratch buffer for encoding one record (guarded by this)
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+    // Position of the record before the first one in the file (guarded by this)
+    private long basePosition;
+    // Position of the last appended record (guarded by this)
+    private long appended;
+    // File length once everything appended is written out (guarded by this)
+    private long appendedBytes;
+    // Position and file offset marked by beginCheckpoint (guarded by this)
+    private long checkpointPosition = -1;
+    private long checkpointOffset;
+    // Change count that wakes a thread in awaitChanges (guarded by this)
+    private long wakeAt = Long.MAX_VALUE;
+    // Position of the last record known to be on disk
+    private volatile long durable;
+    // Held while writing and syncing; waiting threads queue on it
+    private final Object flushLock = new Object();
+    // First write failure; once set, every later sync reports it
+    private volatile IOException failure;
+
+    // Constructor used by open and create
+    private ReservationJournal(Path path, long generation, FileChannel channel,
+                               long basePosition, long appended, long length) {
+        this.path = path;
+        this.generation = generation;
+        this.channel = channel;
+        this.basePosition = basePosition;
+        this.appended = appended;
+        this.appendedBytes = length;
+        this.durable = appended;
+    }
+
+    // Starts an empty journal, replacing any file already there
+    public static ReservationJournal create(Path path, long generation, long basePosition)
+        throws IOException {
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(0);
+            writeHeader(channel, generation, basePosition);
+            channel.force(true);
+            return new ReservationJournal(path, generation, channel, basePosition,
+                                          basePosition, HEADER_BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Reads the complete records after a position from a journal of the given
+    // generation (none if the file is missing or belongs to another generation)
+    public static List<JournalRecord> read(Path path, long generation, long afterPosition)
+        throws IOException {
+
+        List<JournalRecord> records = new ArrayList<>();
+        scan(path, generation, afterPosition, records);
+        return records;
+    }
+
+    // What a scan found in a journal file
+    private static class Contents {
+        long basePosition;   // position before the first record
+        long lastPosition;   // position of the last complete record
+        long validEnd;       // offset just past the last complete frame
+    }
+
+    // Walks the frames of a journal, collecting the records after a position
+    // if asked; returns null if there is no usable journal of this generation
+    private static Contents scan(Path path, long generation, long afterPosition,
+                                 List<JournalRecord> records) throws IOException {
+
+        if (!Files.exists(path)) return null;
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < HEADER_BYTES) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != MAGIC || buffer.getLong() != generation) return null;
+
+        Contents contents = new Contents();
+        contents.basePosition = buffer.getLong();
+        contents.lastPosition = contents.basePosition;
+        contents.validEnd = buffer.position();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) break;
+            crc.reset();
+            crc.update(bytes, buffer.position(), length);
+            if ((int) crc.getValue() != checksum) break;
+            if (records != null && contents.lastPosition + 1 > afterPosition) {
+                try {
+                    records.add(JournalRecord.readFrom(new DataInputStream(
+                        new ByteArrayInputStream(bytes, buffer.position(), length))));
+                } catch (IOException e) {
+                    // Checksum matched but the record does not decode: treat as corrupt
+                    break;
+                }
+            }
+            buffer.position(buffer.position() + length);
+            contents.lastPosition++;
+            contents.validEnd = buffer.position();
+        }
+        return contents;
+    }
+
+    // Writes the header at the current position
+    private static void writeHeader(FileChannel channel, long generation, long basePosition)
+        throws IOException {
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putLong(generation).putLong(basePosition).flip();
+        while (header.hasRemaining()) channel.write(header);
+    }
+
+    // Returns the journal file location
+    public Path getPath() { return path; }
+
+    // Returns the generation (save file lineage) this journal belongs to
+    public long getGeneration() { return generation; }
+
+    // Returns the number of records appended since the last checkpoint
+    public synchronized long getChangeCount() {
+        return appended - basePosition;
+    }
+
+    // Returns the number of records appended but not yet synced to disk
+    public synchronized long getUnsyncedCount() {
+        return appended - durable;
+    }
+
+    // Returns the journal's length in bytes, counting records not yet written out
+    public synchronized long getByteCount() {
+        return appendedBytes;
+    }
+
+    // Buffers a record; returns its position for awaitDurable
+    public synchronized long append(JournalRecord record) {
+        try {
+            recordBytes.reset();
+            record.writeTo(recordOut);
+            CRC32 crc = new CRC32();
+            crc.update(recordBytes.toByteArray());
+            pendingOut.writeInt(recordBytes.size());
+            pendingOut.writeInt((int) crc.getValue());
+            recordBytes.writeTo(pendingOut);
+        } catch (IOException e) {
+            // In-memory streams do not fail; a bad record (e.g. an over-long string) can
+            throw new UncheckedIOException("Cannot journal " + record, e);
+        }
+        appendedBytes += FRAME_HEADER_BYTES + recordBytes.size();
+        appended++;
+        if (appended - basePosition >= wakeAt) {
+            notifyAll();
+        }
+        return appended;
+    }
+
+    // Waits until at least count records have been appended since the last
+    // checkpoint, or the timeout passes; returns the number appended
+    public synchronized long awaitChanges(long count, long timeoutMillis)
+        throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            wakeAt = count;
+            long remaining = timeoutMillis;
+            while (appended - basePosition < count && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return appended - basePosition;
+        } finally {
+            wakeAt = Long.MAX_VALUE;
+        }
+    }
+
+    // Blocks until the record at a position (and everything before it) is on
+    // disk; whichever waiting thread gets the flush lock syncs for all of them
+    public void awaitDurable(long position) throws IOException {
+        if (failure != null) throw failure;
+        if (durable >= position) return;
+        synchronized (flushLock) {
+            if (failure != null) throw failure;
+            if (durable >= position) return;
+            long upTo = writePending();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            durable = upTo;
+        }
+    }
+
+    // Writes the buffered frames to the file without syncing; returns the
+    // position of the last one (caller holds the flush lock)
+    private long writePending() throws IOException {
+        byte[] batch;
+        long upTo;
+        synchronized (this) {
+            batch = pending.toByteArray();
+            pending.reset();
+            upTo = appended;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        return upTo;
+    }
+
+    // Writes out and syncs everything appended so far
+    public void flush() throws IOException {
+        long upTo;
+        synchronized (this) {
+            upTo = appended;
+        }
+        awaitDurable(upTo);
+    }
+
+    // Marks the point a checkpoint is taken at and returns its position; the
+    // caller must make sure every record up to it is reflected in the state
+    // it saves, then call truncateToCheckpoint once that save is on disk
+    public synchronized long beginCheckpoint() {
+        checkpointPosition = appended;
+        checkpointOffset = appendedBytes;
+        return appended;
+    }
+
+    // Drops the records up to the position marked by beginCheckpoint. The
+    // records after it are copied into a new file which then replaces the
+    // old one, so a crash part-way leaves the old, complete journal behind.
+    // Appends carry on meanwhile; they are written to the new file later
+    public void truncateToCheckpoint() throws IOException {
+        synchronized (flushLock) {
+            long position;
+            long offset;
+            synchronized (this) {
+                if (checkpointPosition < 0) {
+                    throw new IllegalStateException("No checkpoint has been started");
+                }
+                position = checkpointPosition;
+                offset = checkpointOffset;
+            }
+            long written = writePending();
+
+            // Records written since the checkpoint was marked
+            ByteBuffer tail = ByteBuffer.allocate((int) (channel.size() - offset));
+            while (tail.hasRemaining()) {
+                if (channel.read(tail, offset + tail.position()) < 0) {
+                    throw new IOException("Journal is shorter than expected");
+                }
+            }
+            tail.flip();
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            FileChannel replacement = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            try {
+                writeHeader(replacement, generation, position);
+                while (tail.hasRemaining()) replacement.write(tail);
+                replacement.force(true);
+                try {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                               StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException e) {
+                replacement.close();
+                throw e;
+            }
+            channel.close();
+            channel = replacement;
+            synchronized (this) {
+                basePosition = position;
+                appendedBytes -= offset - HEADER_BYTES;
+                checkpointPosition = -1;
+            }
+            // Everything written so far is in the synced replacement file
+            durable = written;
+        }
+    }
+
+    // Closes the file, dropping records not yet written out (changes the
+    // owner chose not to keep)
+    public void discard() throws IOException {
+        synchronized (flushLock) {
+            synchronized (this) {
+                pending.reset();
+            }
+            channel.close();
+        }
+    }
+
+    // Syncs anything still buffered and closes the file
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (flushLock) {
+                channel.close();
+            }
+        }
+    }
+}
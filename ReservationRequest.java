@@ -0,0 +1,30 @@
+/**
+ * One (resource, day, slot) booking inside a batch reservation
+ * Passed to CampusSystem.makeReservations
+ */
+public class ReservationRequest {
+    // Resource to book
+    private final String resourceId;
+    // Day index (0=Monday through 4=Friday)
+    private final int dayIndex;
+    // Time slot index (0=8:00-10:00 through 7=23:00-1:00)
+    private final int slotIndex;
+    
+    // Constructor stores the requested booking
+    public ReservationRequest(String resourceId, int dayIndex, int slotIndex) {
+        this.resourceId = resourceId;
+        this.dayIndex = dayIndex;
+        this.slotIndex = slotIndex;
+    }
+    
+    // Getters for request properties
+    public String getResourceId() { return resourceId; }
+    public int getDayIndex() { return dayIndex; }
+    public int getSlotIndex() { return slotIndex; }
+    
+    @Override
+    // Provides a short description of the request
+    public String toString() {
+        return resourceId + " day " + dayIndex + " slot " + slotIndex;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Outcome of one item in a batch reservation
+ * Holds the booked reservation, or the reason the item was not booked
+ */
+public class ReservationResult {
+    // The item this result answers
+    private final ReservationRequest request;
+    // Booked reservation (null when not booked)
+    private final Reservation reservation;
+    // Why the item was not booked (null when booked)
+    private final String error;
+    
+    // Constructor used by CampusSystem.makeReservations
+    ReservationResult(ReservationRequest request, Reservation reservation, String error) {
+        this.request = request;
+        this.reservation = reservation;
+        this.error = error;
+    }
+    
+    // Getters for result properties
+    public ReservationRequest getRequest() { return request; }
+    public Reservation getReservation() { return reservation; }
+    public String getError() { return error; }
+    // Returns true if the item was booked
+    public boolean isBooked() { return reservation != null; }
+    
+    @Override
+    // Provides a short description of the outcome
+    public String toString() {
+        return request + ": " + (isBooked() ? reservation.getReservationId() : "not booked - " + error);
+    }
+}
@@ -0,0 +1,395 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP entry point serving reservations, search and schedules as JSON
+ * Runs on the JDK's built-in HTTP server, one virtual thread per request
+ * where the JVM supports them (a cached thread pool otherwise)
+ *
+ * Endpoints:
+ *   POST /reservations                 {"resourceId", "username", "day", "slot"}
+ *   GET  /reservations/{id}
+ *   POST /reservations/{id}/cancel     {"username"}
+ *   GET  /resources?name=&type=&minCapacity=&equipmentType=&day=&slot=&limit=
+ *   GET  /resources/{id}/schedule
+ *
+ * Callers are not authenticated: the username in a request body is
+ * trusted, including "admin". The server therefore listens on the
+ * loopback interface only, unless a bind address is given explicitly.
+ */
+public class ReservationServer {
+    // Defaults used when no port or data file is given on the command line
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_DATA_FILE = "campus_system.txt";
+    // Journaled changes, or seconds with changes pending, between checkpoints
+    private static final long CHECKPOINT_CHANGES = 1000;
+    private static final long CHECKPOINT_SECONDS = 60;
+    // Pending connections the listening socket queues before refusing more
+    private static final int CONNECTION_BACKLOG = 1024;
+
+    // System all requests run against
+    private final CampusSystem campus;
+    // Underlying JDK HTTP server and the executor running its requests
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Constructor binds the server to a port on the loopback interface
+    // (0 picks a free port)
+    public ReservationServer(CampusSystem campus, int port) throws IOException {
+        this(campus, InetAddress.getLoopbackAddress(), port);
+    }
+    
+    // Constructor binds the server to a port on the given address; anyone
+    // who can reach that address can act as any user (see class comment)
+    public ReservationServer(CampusSystem campus, InetAddress bindAddress, int port)
+            throws IOException {
+        this.campus = campus;
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port),
+                                        CONNECTION_BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/reservations", this::handleReservations);
+        server.createContext("/resources", this::handleResources);
+    }
+
+    // Program entry point: java ReservationServer [port] [dataFile] [bindAddress]
+    // (bindAddress defaults to loopback; e.g. 0.0.0.0 serves every interface)
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String dataFile = args.length > 1 ? args[1] : DEFAULT_DATA_FILE;
+        InetAddress bindAddress;
+        try {
+            bindAddress = args.length > 2 ? InetAddress.getByName(args[2])
+                                          : InetAddress.getLoopbackAddress();
+        } catch (UnknownHostException e) {
+            System.out.println("Unknown bind address: " + args[2]);
+            return;
+        }
+        if (!bindAddress.isLoopbackAddress()) {
+            System.out.println("Warning: requests are not authenticated; anyone who can reach "
+                + bindAddress.getHostAddress() + " can book and cancel as any user");
+        }
+
+        CampusSystem campus;
+        try {
+            campus = CampusSystem.loadFromFile(dataFile);
+        } catch (DataPersistenceException e) {
+            System.out.println("Creating new system with default data.");
+            campus = new CampusSystem();
+        }
+        // Keep the (ever-growing) archive in a mapped file so startup does
+        // not read the whole history
+        try {
+            campus.enableMappedArchive(dataFile);
+        } catch (DataPersistenceException e) {
+            System.out.println("Could not map archive: " + e.getMessage());
+        }
+        // Journal every booking so one made over HTTP survives a crash
+        try {
+            campus.enableJournal(dataFile);
+        } catch (DataPersistenceException e) {
+            System.out.println("Could not start journal: " + e.getMessage());
+        }
+
+        try {
+            ReservationServer reservationServer = new ReservationServer(campus, bindAddress, port);
+            final CampusSystem saved = campus;
+            // Keep the journal short so a restart replays little
+            Checkpointer checkpointer = new Checkpointer(campus, CHECKPOINT_CHANGES,
+                                                         CHECKPOINT_SECONDS, TimeUnit.SECONDS);
+            // Save on Ctrl+C / SIGTERM, leaving an empty journal for the next start
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                reservationServer.stop();
+                checkpointer.close();
+                try {
+                    saved.consolidate(dataFile);
+                } catch (DataPersistenceException e) {
+                    System.out.println("Error saving on shutdown: " + e.getMessage());
+                }
+            }));
+            reservationServer.start();
+            System.out.println("Reservation service listening on "
+                + bindAddress.getHostAddress() + ":" + reservationServer.getPort());
+        } catch (IOException e) {
+            System.out.println("Could not start server: " + e.getMessage());
+        }
+    }
+
+    // Starts accepting requests
+    public void start() {
+        server.start();
+    }
+
+    // Stops accepting requests and lets running ones finish (up to one second)
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // Returns the port the server is bound to
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Creates a virtual-thread-per-task executor when the JVM has one
+    // (Java 21+), otherwise a cached pool of platform threads
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // ========== REQUEST HANDLERS ==========
+
+    // Routes /reservations requests
+    private void handleReservations(HttpExchange exchange) throws IOException {
+        String[] path = pathParts(exchange);
+        String method = exchange.getRequestMethod();
+        try {
+            if (!path[0].equals("reservations")) {
+                sendError(exchange, 404, "No such endpoint: " + exchange.getRequestURI().getPath());
+                return;
+            }
+
+            if (path.length == 1 && method.equals("POST")) {
+                Map<String, Object> body = SimpleJson.parseObject(readBody(exchange));
+                Reservation reservation = campus.makeReservation(
+                    requireString(body, "resourceId"), requireString(body, "username"),
+                    requireInt(body, "day"), requireInt(body, "slot"));
+                send(exchange, 201, reservationJson(reservation));
+            } else if (path.length == 2 && method.equals("GET")) {
+                Reservation reservation = campus.findReservation(path[1]);
+                if (reservation == null) {
+                    throw new ResourceNotFoundException("Reservation not found: " + path[1]);
+                }
+                send(exchange, 200, reservationJson(reservation));
+            } else if (path.length == 3 && path[2].equals("cancel") && method.equals("POST")) {
+                Map<String, Object> body = SimpleJson.parseObject(readBody(exchange));
+                Reservation reservation = campus.cancelReservation(
+                    path[1], requireString(body, "username"));
+                send(exchange, 200, reservationJson(reservation));
+            } else {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (Exception e) {
+            sendException(exchange, e);
+        }
+    }
+
+    // Routes /resources requests
+    private void handleResources(HttpExchange exchange) throws IOException {
+        String[] path = pathParts(exchange);
+        String method = exchange.getRequestMethod();
+        try {
+            if (!path[0].equals("resources")) {
+                sendError(exchange, 404, "No such endpoint: " + exchange.getRequestURI().getPath());
+                return;
+            }
+
+            if (path.length == 1 && method.equals("GET")) {
+                send(exchange, 200, searchResources(queryParams(exchange)));
+            } else if (path.length == 3 && path[2].equals("schedule") && method.equals("GET")) {
+                if (campus.findResource(path[1]) == null) {
+                    throw new ResourceNotFoundException("Resource not found: " + path[1]);
+                }
+                StringBuilder json = new StringBuilder("{\"resourceId\":")
+                    .append(SimpleJson.quote(path[1])).append(",\"reservations\":[");
+                appendReservations(json, campus.getResourceReservations(path[1]));
+                send(exchange, 200, json.append("]}").toString());
+            } else {
+                sendError(exchange, 404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (Exception e) {
+            sendException(exchange, e);
+        }
+    }
+
+    // Runs a composite resource search from query string parameters
+    private String searchResources(Map<String, String> params)
+        throws InvalidInputException, InvalidTimeSlotException {
+
+        ResourceQuery query = campus.query().nameContains(params.get("name"));
+        if (params.containsKey("type")) {
+            ResourceType type = ResourceType.fromDisplayName(params.get("type"));
+            if (type == null) {
+                throw new InvalidInputException("Unknown resource type: " + params.get("type"));
+            }
+            query.ofType(type);
+        }
+        if (params.containsKey("minCapacity")) {
+            query.minCapacity(parseInt(params.get("minCapacity"), "minCapacity"));
+        }
+        query.equipmentType(params.get("equipmentType"));
+        if (params.containsKey("day") || params.containsKey("slot")) {
+            if (!params.containsKey("day") || !params.containsKey("slot")) {
+                throw new InvalidInputException("'day' and 'slot' must be given together.");
+            }
+            query.freeAt(parseInt(params.get("day"), "day"), parseInt(params.get("slot"), "slot"));
+        }
+        if (params.containsKey("limit")) {
+            int limit = parseInt(params.get("limit"), "limit");
+            if (limit < 0) throw new InvalidInputException("'limit' cannot be negative.");
+            query.limit(limit);
+        }
+
+        StringBuilder json = new StringBuilder("{\"resources\":[");
+        List<CampusResource> matches = query.list();
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(resourceJson(matches.get(i)));
+        }
+        return json.append("]}").toString();
+    }
+
+    // ========== JSON OUTPUT ==========
+
+    // Formats a reservation as a JSON object
+    private static String reservationJson(Reservation reservation) {
+        return "{\"reservationId\":" + SimpleJson.quote(reservation.getReservationId())
+            + ",\"resourceId\":" + SimpleJson.quote(reservation.getResourceId())
+            + ",\"username\":" + SimpleJson.quote(reservation.getUsername())
+            + ",\"day\":" + reservation.getDayIndex()
+            + ",\"slot\":" + reservation.getSlotIndex()
+            + ",\"dayName\":" + SimpleJson.quote(reservation.getDayName())
+            + ",\"time\":" + SimpleJson.quote(reservation.getTimeRange())
+            + ",\"active\":" + reservation.isActive() + "}";
+    }
+
+    // Appends reservations as comma-separated JSON objects
+    private static void appendReservations(StringBuilder json, List<Reservation> reservations) {
+        for (int i = 0; i < reservations.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(reservationJson(reservations.get(i)));
+        }
+    }
+
+    // Formats a resource as a JSON object, with its type-specific field
+    private static String resourceJson(CampusResource resource) {
+        StringBuilder json = new StringBuilder("{\"id\":").append(SimpleJson.quote(resource.getId()))
+            .append(",\"name\":").append(SimpleJson.quote(resource.getName()))
+            .append(",\"type\":").append(SimpleJson.quote(resource.getResourceType()));
+        if (resource instanceof StudyRoom) {
+            json.append(",\"capacity\":").append(((StudyRoom) resource).getCapacity());
+        } else if (resource instanceof LabEquipment) {
+            json.append(",\"equipmentType\":")
+                .append(SimpleJson.quote(((LabEquipment) resource).getEquipmentType()));
+        }
+        return json.append('}').toString();
+    }
+
+    // ========== HTTP HELPERS ==========
+
+    // Splits the request path into its non-empty segments
+    private static String[] pathParts(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.replaceAll("^/+|/+$", "").split("/+");
+    }
+
+    // Decodes the query string into a map (last value wins for repeated keys)
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                       URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // Reads the whole request body as UTF-8 text
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Returns a required string field from a parsed body
+    private static String requireString(Map<String, Object> body, String field)
+        throws InvalidInputException {
+        Object value = body.get(field);
+        if (!(value instanceof String)) {
+            throw new InvalidInputException("Field '" + field + "' must be a string.");
+        }
+        return (String) value;
+    }
+
+    // Returns a required whole-number field from a parsed body
+    private static int requireInt(Map<String, Object> body, String field)
+        throws InvalidInputException {
+        Object value = body.get(field);
+        if (!(value instanceof Long)
+                || (Long) value < Integer.MIN_VALUE || (Long) value > Integer.MAX_VALUE) {
+            throw new InvalidInputException("Field '" + field + "' must be a whole number.");
+        }
+        return ((Long) value).intValue();
+    }
+
+    // Parses a whole-number query parameter
+    private static int parseInt(String value, String name) throws InvalidInputException {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Parameter '" + name + "' must be a whole number.");
+        }
+    }
+
+    // Maps a system exception to an HTTP status and sends it as a JSON error.
+    // Unexpected exceptions are logged here and reach the client only as a
+    // generic 500, as their messages may describe server internals (file
+    // paths, failed I/O)
+    private static void sendException(HttpExchange exchange, Exception e) throws IOException {
+        int status;
+        if (e instanceof InvalidInputException || e instanceof InvalidTimeSlotException) {
+            status = 400;
+        } else if (e instanceof UnauthorizedAccessException) {
+            status = 403;
+        } else if (e instanceof ResourceNotFoundException) {
+            status = 404;
+        } else if (e instanceof ReservationConflictException) {
+            status = 409;
+        } else {
+            System.out.println("Error handling " + exchange.getRequestMethod() + " "
+                               + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal error");
+            return;
+        }
+        sendError(exchange, status, e.getMessage());
+    }
+
+    // Sends a JSON error body
+    private static void sendError(HttpExchange exchange, int status, String message)
+        throws IOException {
+        send(exchange, status, "{\"error\":" + SimpleJson.quote(message) + "}");
+    }
+
+    // Sends a JSON response and closes the exchange
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
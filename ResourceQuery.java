@@ -0,0 +1,100 @@
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Composite resource query combining name, type, capacity,
+ * equipment type and free-at-time filters
+ * Built with chained calls from CampusSystem.query() and run by CampusSystem
+ */
+public class ResourceQuery {
+    // System the query runs against
+    private final CampusSystem campus;
+    // Name substring filter (null = any name)
+    private String nameContains;
+    // Resource type filter (null = any type)
+    private ResourceType type;
+    // Minimum study room capacity (null = no capacity filter)
+    private Integer minCapacity;
+    // Equipment type substring filter (null = no equipment filter)
+    private String equipmentType;
+    // Day/time slot the resource must be free at (-1 = no time filter)
+    private int freeDay = -1;
+    private int freeSlot = -1;
+    // Maximum number of results (-1 = unlimited)
+    private long limit = -1;
+    
+    // Constructor used by CampusSystem.query()
+    ResourceQuery(CampusSystem campus) {
+        this.campus = campus;
+    }
+    
+    // Keeps resources whose name contains the text (case-insensitive)
+    public ResourceQuery nameContains(String text) {
+        this.nameContains = (text == null || text.trim().isEmpty()) ? null : text;
+        return this;
+    }
+    
+    // Keeps resources of one type
+    public ResourceQuery ofType(ResourceType type) {
+        this.type = type;
+        return this;
+    }
+    
+    // Keeps study rooms holding at least the given number of people
+    public ResourceQuery minCapacity(int minCapacity) {
+        this.minCapacity = minCapacity;
+        return this;
+    }
+    
+    // Keeps lab equipment whose equipment type contains the text (case-insensitive)
+    public ResourceQuery equipmentType(String text) {
+        this.equipmentType = (text == null || text.trim().isEmpty()) ? null : text;
+        return this;
+    }
+    
+    // Keeps resources with no active reservation at the day/time slot
+    public ResourceQuery freeAt(int day, int slot) throws InvalidTimeSlotException {
+        if (day < 0 || day >= ResourceSchedule.DAYS_PER_WEEK) {
+            throw new InvalidTimeSlotException("Invalid day: " + day);
+        }
+        if (slot < 0 || slot >= ResourceSchedule.SLOTS_PER_DAY) {
+            throw new InvalidTimeSlotException("Invalid time slot: " + slot);
+        }
+        this.freeDay = day;
+        this.freeSlot = slot;
+        return this;
+    }
+    
+    // Stops after the given number of results
+    public ResourceQuery limit(long maxResults) {
+        if (maxResults < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        this.limit = maxResults;
+        return this;
+    }
+    
+    // Runs the query and streams its matches lazily in catalogue order:
+    // resources are checked as the stream reaches them, so it stops at the
+    // limit or wherever the caller stops. Unlike list(), the stream is not
+    // one consistent view if the catalogue changes while it is consumed
+    public Stream<CampusResource> stream() {
+        return campus.streamQuery(this);
+    }
+    
+    // Runs the query and collects its matches in catalogue order, all from
+    // one consistent catalogue; resources past the limit are never collected
+    public List<CampusResource> list() {
+        return campus.runQuery(this);
+    }
+    
+    // Accessors used by CampusSystem when planning the query
+    String getNameContains() { return nameContains; }
+    ResourceType getType() { return type; }
+    Integer getMinCapacity() { return minCapacity; }
+    String getEquipmentType() { return equipmentType; }
+    boolean hasFreeSlot() { return freeDay >= 0; }
+    int getFreeDay() { return freeDay; }
+    int getFreeSlot() { return freeSlot; }
+    long getLimit() { return limit; }
+}
@@ -1,76 +1,171 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Weekly schedule tracking reservations for a single resource
  * Manages time-based ownership of resource
+ *
+ * Thread-safe without locks: each slot is an atomic cell, and claim/release
+ * switch a cell between empty and a reservation with compare-and-set, so
+ * of several threads racing for one slot exactly one wins.
  */
 public class ResourceSchedule implements Serializable {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = 2399650163895381211L;
+    
     // Constants defining schedule dimensions
     public static final int DAYS_PER_WEEK = 5;  // Monday-Friday
     public static final int SLOTS_PER_DAY = 8;  // 8 time slots per day
+    public static final int SLOTS_PER_WEEK = DAYS_PER_WEEK * SLOTS_PER_DAY;
+    // Bit mask with one bit set for every slot of the week
+    private static final long FULL_WEEK_MASK = (1L << SLOTS_PER_WEEK) - 1;
     
-    // 2D array representing weekly schedule (days × time slots)
+    // 2D array representing weekly schedule (days × time slots); only used
+    // as the saved form, the live schedule is held in cells
     private Reservation[][] weeklySchedule;
     // ID of resource this schedule belongs to
     private String resourceId;
+    // Live schedule: one cell per slot of the week, indexed (day * SLOTS_PER_DAY + slot),
+    // holding the active reservation or null when the slot is free
+    private transient AtomicReferenceArray<Reservation> cells;
+    // Occupancy bits mirroring the cells: bit (day * SLOTS_PER_DAY + slot)
+    // is set while that slot holds a reservation (see syncOccupancy)
+    private transient AtomicLong occupancy;
     
     // Constructor creates empty schedule for specified resource
     public ResourceSchedule(String resourceId) {
         this.resourceId = resourceId;
         this.weeklySchedule = new Reservation[DAYS_PER_WEEK][SLOTS_PER_DAY];
+        this.cells = new AtomicReferenceArray<>(SLOTS_PER_WEEK);
+        this.occupancy = new AtomicLong();
+    }
+    
+    // Returns the position of a day/slot in the cells and occupancy mask
+    private static int slotIndex(int day, int slot) {
+        return day * SLOTS_PER_DAY + slot;
+    }
+    
+    // Recomputes the occupancy mask from the cells
+    public void rebuildOccupancy() {
+        long mask = 0;
+        for (int index = 0; index < SLOTS_PER_WEEK; index++) {
+            if (cells.get(index) != null) {
+                mask |= 1L << index;
+            }
+        }
+        occupancy.set(mask);
+    }
+    
+    // Brings a slot's occupancy bit in line with its cell. Rechecks the cell
+    // after writing the mask: if another thread changed the cell meanwhile,
+    // it runs this too, so the last write always reflects the latest cell
+    private void syncOccupancy(int index) {
+        long bit = 1L << index;
+        while (true) {
+            Reservation current = cells.get(index);
+            long mask = occupancy.get();
+            long updated = current != null ? mask | bit : mask & ~bit;
+            if (occupancy.compareAndSet(mask, updated) && cells.get(index) == current) {
+                return;
+            }
+        }
     }
     
     // Returns the resource ID this schedule tracks
     public String getResourceId() { return resourceId; }
     
-    // Adds reservation to specific day/time slot
+    // Atomically books a free slot for a reservation; returns false without
+    // changing anything if the slot is already taken
+    public boolean claim(int day, int slot, Reservation reservation) {
+        validateIndices(day, slot);
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation cannot be null");
+        }
+        int index = slotIndex(day, slot);
+        if (!cells.compareAndSet(index, null, reservation)) {
+            return false;
+        }
+        syncOccupancy(index);
+        return true;
+    }
+    
+    // Atomically frees a slot if it still holds the given reservation;
+    // returns false if the slot holds something else (e.g. already released)
+    public boolean release(int day, int slot, Reservation reservation) {
+        validateIndices(day, slot);
+        int index = slotIndex(day, slot);
+        if (reservation == null || !cells.compareAndSet(index, reservation, null)) {
+            return false;
+        }
+        syncOccupancy(index);
+        return true;
+    }
+    
+    // Adds reservation to specific day/time slot, replacing whatever is there
     public void addReservation(int day, int slot, Reservation reservation) {
         validateIndices(day, slot);
-        weeklySchedule[day][slot] = reservation;
+        int index = slotIndex(day, slot);
+        cells.set(index, reservation != null && reservation.isActive() ? reservation : null);
+        syncOccupancy(index);
     }
     
     // Removes reservation from specific day/time slot
     public void removeReservation(int day, int slot) {
         validateIndices(day, slot);
-        weeklySchedule[day][slot] = null;
+        int index = slotIndex(day, slot);
+        cells.set(index, null);
+        syncOccupancy(index);
     }
     
     // Gets reservation at specific day/time slot
     public Reservation getReservation(int day, int slot) {
         validateIndices(day, slot);
-        return weeklySchedule[day][slot];
+        return cells.get(slotIndex(day, slot));
     }
     
     // Checks if specific time slot has an active reservation
     public boolean hasReservationAt(int day, int slot) {
         validateIndices(day, slot);
-        Reservation reservation = weeklySchedule[day][slot];
-        return reservation != null && reservation.isActive();
+        return cells.get(slotIndex(day, slot)) != null;
     }
     
     // Checks if resource has any active reservations at all
     public boolean hasActiveReservations() {
-        for (int day = 0; day < DAYS_PER_WEEK; day++) {
-            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
-                if (hasReservationAt(day, slot)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return occupancy.get() != 0;
+    }
+    
+    // Returns number of slots this week holding an active reservation
+    public int getReservedSlotCount() {
+        return Long.bitCount(occupancy.get());
+    }
+    
+    // Returns number of slots this week still free to book
+    public int getFreeSlotCount() {
+        return SLOTS_PER_WEEK - Long.bitCount(occupancy.get());
+    }
+    
+    // Returns first free slot of the week as (day * SLOTS_PER_DAY + slot),
+    // or -1 if every slot is booked
+    public int findFirstFreeSlot() {
+        long free = ~occupancy.get() & FULL_WEEK_MASK;
+        return free == 0 ? -1 : Long.numberOfTrailingZeros(free);
     }
     
     // Returns list of all active reservations in this schedule
     public List<Reservation> getAllReservations() {
         List<Reservation> allReservations = new ArrayList<>();
-        for (int day = 0; day < DAYS_PER_WEEK; day++) {
-            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
-                Reservation reservation = weeklySchedule[day][slot];
-                if (reservation != null && reservation.isActive()) {
-                    allReservations.add(reservation);
-                }
+        // Visit only occupied slots, lowest bit (earliest slot) first
+        for (long bits = occupancy.get(); bits != 0; bits &= bits - 1) {
+            Reservation reservation = cells.get(Long.numberOfTrailingZeros(bits));
+            // Slot may have been freed since the mask was read
+            if (reservation != null) {
+                allReservations.add(reservation);
             }
         }
         return allReservations;
@@ -85,20 +180,44 @@ public class ResourceSchedule implements Serializable {
             "17:00-19:00", "19:00-21:00", "21:00-23:00", "23:00-1:00"
         };
         
-        // Iterate through all time slots to find bookings
-        for (int day = 0; day < DAYS_PER_WEEK; day++) {
-            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
-                Reservation res = weeklySchedule[day][slot];
-                if (res != null && res.isActive()) {
-                    // Format: "Monday 8:00-10:00: username (RES-001)"
-                    contents.add(dayNames[day] + " " + slotTimes[slot] + ": " + 
-                                res.getUsername() + " (" + res.getReservationId() + ")");
-                }
-            }
+        // Iterate through occupied time slots only
+        for (long bits = occupancy.get(); bits != 0; bits &= bits - 1) {
+            int index = Long.numberOfTrailingZeros(bits);
+            int day = index / SLOTS_PER_DAY;
+            int slot = index % SLOTS_PER_DAY;
+            Reservation res = cells.get(index);
+            if (res == null) continue;  // freed since the mask was read
+            // Format: "Monday 8:00-10:00: username (RES-001)"
+            contents.add(dayNames[day] + " " + slotTimes[slot] + ": " + 
+                        res.getUsername() + " (" + res.getReservationId() + ")");
         }
         return contents;
     }
     
+    // Copies the live cells into the grid before the default fields are written
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        Reservation[][] grid = new Reservation[DAYS_PER_WEEK][SLOTS_PER_DAY];
+        for (int index = 0; index < SLOTS_PER_WEEK; index++) {
+            grid[index / SLOTS_PER_DAY][index % SLOTS_PER_DAY] = cells.get(index);
+        }
+        weeklySchedule = grid;
+        out.defaultWriteObject();
+    }
+    
+    // Rebuilds the live cells from the saved grid (cancelled entries count as free)
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        cells = new AtomicReferenceArray<>(SLOTS_PER_WEEK);
+        for (int index = 0; index < SLOTS_PER_WEEK; index++) {
+            Reservation reservation = weeklySchedule[index / SLOTS_PER_DAY][index % SLOTS_PER_DAY];
+            if (reservation != null && reservation.isActive()) {
+                cells.set(index, reservation);
+            }
+        }
+        occupancy = new AtomicLong();
+        rebuildOccupancy();
+    }
+    
     // Validates day and slot indices are within bounds
     private void validateIndices(int day, int slot) {
         if (day < 0 || day >= DAYS_PER_WEEK) {
@@ -114,7 +233,7 @@ public class ResourceSchedule implements Serializable {
     @Override
     // Provides summary string of schedule
     public String toString() {
-        int activeCount = getAllReservations().size();
+        int activeCount = getReservedSlotCount();
         return "Schedule for " + resourceId + " (" + activeCount + " active reservations)";
     }
 }
@@ -0,0 +1,31 @@
+/**
+ * Kinds of campus resource, each with its display name
+ * Every concrete CampusResource reports one of these as its type tag
+ */
+public enum ResourceType {
+    STUDY_ROOM("Study Room"),
+    LAB_EQUIPMENT("Lab Equipment");
+    
+    // Name shown to users and written to exports
+    private final String displayName;
+    
+    // Constructor stores the display name for the type
+    ResourceType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    // Returns the display name (e.g., "Study Room")
+    public String getDisplayName() { return displayName; }
+    
+    // Looks up a type by display name (case-insensitive), returns null if unknown
+    public static ResourceType fromDisplayName(String name) {
+        if (name == null) return null;
+        String trimmed = name.trim();
+        for (ResourceType type : values()) {
+            if (type.displayName.equalsIgnoreCase(trimmed)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,426 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary save file format of a CampusSystem
+ * Writes each resource, username and reservation once into a table and
+ * refers to it by position, instead of the class descriptors and object
+ * graph of Java serialization; reservations are fixed-width records of
+ * (ID number, resource, user, day, slot, status).
+ *
+ * File layout: magic number, format version, counters, then the tables
+ * (irregular reservation IDs, usernames, users, resources), reservation
+ * records, schedules and archive, and a CRC-32 of everything before it.
+ * Readers reject versions newer than their own; older versions stay
+ * readable when the format changes.
+ *
+ * Versions: 1 holds the archived records in the file; 2 adds a flag
+ * letting the archive refer to its own memory-mapped file instead (see
+ * ReservationArchive.moveToFile).
+ */
+public class SaveFileCodec {
+    // Identifies a binary save file ("SCRS"); Java serialization streams
+    // start with 0xACED instead, which is how old save files are told apart
+    public static final int MAGIC = 0x53435253;
+    // Version written by this class
+    public static final int VERSION = 2;
+
+    // Reservation status byte
+    private static final byte CANCELLED = 0;
+    private static final byte ACTIVE = 1;
+    // Resource kind byte
+    private static final byte STUDY_ROOM = 0;
+    private static final byte LAB_EQUIPMENT = 1;
+    // Marks an empty schedule slot or a schedule whose resource is not in the table
+    private static final int NONE = -1;
+
+    // Saved state of a CampusSystem, as written and read by the codec
+    public static class Contents {
+        // Catalogue, users and live reservations (active ones first booked first)
+        public final List<CampusResource> resources;
+        public final List<User> users;
+        public final List<Reservation> reservations;
+        public final ReservationArchive archive;
+        public final List<ResourceSchedule> schedules;
+        // Counters and settings saved with the system
+        public final int compactionThreshold;
+        public final AtomicLong reservationSequence;
+        public final AtomicLong userSequence;
+        public final long journalGeneration;
+        public final long journalCheckpoint;
+
+        // Constructor takes every saved part of the system
+        public Contents(List<CampusResource> resources, List<User> users,
+                        List<Reservation> reservations, ReservationArchive archive,
+                        List<ResourceSchedule> schedules, int compactionThreshold,
+                        AtomicLong reservationSequence, AtomicLong userSequence,
+                        long journalGeneration, long journalCheckpoint) {
+            this.resources = resources;
+            this.users = users;
+            this.reservations = reservations;
+            this.archive = archive;
+            this.schedules = schedules;
+            this.compactionThreshold = compactionThreshold;
+            this.reservationSequence = reservationSequence;
+            this.userSequence = userSequence;
+            this.journalGeneration = journalGeneration;
+            this.journalCheckpoint = journalCheckpoint;
+        }
+    }
+
+    // Tables built while writing: each distinct object gets the next position
+    private final List<String> irregularIds = new ArrayList<>();
+    private final Map<String, Integer> irregularIdRefs = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+    private final Map<String, Integer> usernameRefs = new HashMap<>();
+    private final List<CampusResource> resourceTable = new ArrayList<>();
+    private final Map<CampusResource, Integer> resourceRefs = new IdentityHashMap<>();
+    private final List<Reservation> records = new ArrayList<>();
+    private final Map<Reservation, Integer> recordRefs = new IdentityHashMap<>();
+
+    // Instances only live for the duration of one write
+    private SaveFileCodec() {
+    }
+
+    // ========== WRITING ==========
+
+    // Writes the contents followed by their checksum (the output should be
+    // buffered); archivePath is where the save file's archive file lives
+    public static void write(OutputStream target, Contents contents, Path archivePath)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new CheckedOutputStream(target, crc));
+        new SaveFileCodec().writeContents(out, contents, archivePath);
+        out.flush();
+        new DataOutputStream(target).writeInt((int) crc.getValue());
+    }
+
+    // Checks whether a stream starts with a binary save file, without
+    // consuming anything (the stream must support mark/reset)
+    public static boolean isSaveFile(InputStream in) throws IOException {
+        in.mark(Integer.BYTES);
+        try {
+            byte[] header = in.readNBytes(Integer.BYTES);
+            return header.length == Integer.BYTES
+                && ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16
+                    | (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) == MAGIC;
+        } finally {
+            in.reset();
+        }
+    }
+
+    // Builds the tables, then writes them followed by what refers to them
+    private void writeContents(DataOutputStream out, Contents contents, Path archivePath)
+            throws IOException {
+        // Catalogue resources come first, in catalogue order, so the
+        // catalogue is just the first resourceCount table entries
+        for (CampusResource resource : contents.resources) resourceRef(resource);
+        int resourceCount = resourceTable.size();
+        for (User user : contents.users) usernameRef(user.getUsername());
+        for (Reservation reservation : contents.reservations) recordRef(reservation);
+        int liveCount = records.size();
+        // Slots are read once, as bookings may run while the file is written.
+        // They can hold a reservation the live set no longer does (a
+        // checkpoint catching a booking mid-rollback); those follow the live ones
+        List<Reservation[]> slots = new ArrayList<>(contents.schedules.size());
+        for (ResourceSchedule schedule : contents.schedules) {
+            Reservation[] cells = new Reservation[ResourceSchedule.SLOTS_PER_WEEK];
+            for (int index = 0; index < cells.length; index++) {
+                cells[index] = schedule.getReservation(index / ResourceSchedule.SLOTS_PER_DAY,
+                                                       index % ResourceSchedule.SLOTS_PER_DAY);
+                if (cells[index] != null) recordRef(cells[index]);
+            }
+            slots.add(cells);
+        }
+        for (Reservation reservation : records) {
+            resourceRef(reservation.getResource());
+            usernameRef(reservation.getUsername());
+            reservationNumber(reservation.getReservationId());
+        }
+        for (CampusResource resource : contents.archive.getResourceTable()) resourceRef(resource);
+        for (String username : contents.archive.getUserTable()) usernameRef(username);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(contents.reservationSequence.get());
+        out.writeLong(contents.userSequence.get());
+        out.writeInt(contents.compactionThreshold);
+        out.writeLong(contents.journalGeneration);
+        out.writeLong(contents.journalCheckpoint);
+
+        writeStrings(out, irregularIds);
+        writeStrings(out, usernames);
+        out.writeInt(contents.users.size());
+        for (User user : contents.users) {
+            out.writeInt(usernameRefs.get(user.getUsername()));
+            writeOptional(out, user.getUserId());
+            out.writeBoolean(user.canManageResources());
+        }
+        out.writeInt(resourceTable.size());
+        out.writeInt(resourceCount);
+        for (CampusResource resource : resourceTable) {
+            writeResource(out, resource);
+        }
+
+        out.writeInt(records.size());
+        out.writeInt(liveCount);
+        for (Reservation reservation : records) {
+            out.writeLong(reservationNumber(reservation.getReservationId()));
+            out.writeInt(resourceRefs.get(reservation.getResource()));
+            out.writeInt(usernameRefs.get(reservation.getUsername()));
+            out.writeByte(reservation.getDayIndex());
+            out.writeByte(reservation.getSlotIndex());
+            out.writeByte(reservation.isActive() ? ACTIVE : CANCELLED);
+        }
+
+        Map<String, Integer> catalogueRefs = new HashMap<>();
+        for (int i = resourceCount - 1; i >= 0; i--) {
+            catalogueRefs.put(resourceTable.get(i).getId(), i);
+        }
+        out.writeInt(contents.schedules.size());
+        for (int i = 0; i < contents.schedules.size(); i++) {
+            String resourceId = contents.schedules.get(i).getResourceId();
+            writeSchedule(out, resourceId, slots.get(i), catalogueRefs.get(resourceId));
+        }
+
+        contents.archive.writeTo(out, resource -> resourceRefs.get(resource),
+                                 username -> usernameRefs.get(username), archivePath);
+    }
+
+    // Writes a schedule as its resource's position and one record position per slot
+    // (null ref: no catalogue resource has the schedule's resource ID)
+    private void writeSchedule(DataOutputStream out, String resourceId, Reservation[] cells,
+                               Integer ref) throws IOException {
+        out.writeInt(ref == null ? NONE : ref);
+        if (ref == null) out.writeUTF(resourceId);
+        for (Reservation reservation : cells) {
+            out.writeInt(reservation == null ? NONE : recordRefs.get(reservation));
+        }
+    }
+
+    // Writes a resource with its type-specific details
+    private static void writeResource(DataOutputStream out, CampusResource resource)
+            throws IOException {
+        if (resource instanceof StudyRoom) {
+            out.writeByte(STUDY_ROOM);
+            out.writeUTF(resource.getId());
+            writeOptional(out, resource.getName());
+            out.writeInt(((StudyRoom) resource).getCapacity());
+        } else if (resource instanceof LabEquipment) {
+            out.writeByte(LAB_EQUIPMENT);
+            out.writeUTF(resource.getId());
+            writeOptional(out, resource.getName());
+            writeOptional(out, ((LabEquipment) resource).getEquipmentType());
+        } else {
+            throw new IllegalArgumentException("Unsupported resource type: " + resource.getType());
+        }
+    }
+
+    // Returns the number of a "RES-n" ID, or (-1 - table position) for any other ID
+    private long reservationNumber(String reservationId) {
+        long sequence = Reservation.sequenceOf(reservationId);
+        if (sequence >= 0 && reservationId.equals("RES-" + sequence)) return sequence;
+        Integer ref = irregularIdRefs.get(reservationId);
+        if (ref == null) {
+            ref = irregularIds.size();
+            irregularIds.add(reservationId);
+            irregularIdRefs.put(reservationId, ref);
+        }
+        return -1 - ref;
+    }
+
+    // Returns the table position of a username, adding it if new
+    private int usernameRef(String username) {
+        Integer ref = usernameRefs.get(username);
+        if (ref == null) {
+            ref = usernames.size();
+            usernames.add(username);
+            usernameRefs.put(username, ref);
+        }
+        return ref;
+    }
+
+    // Returns the table position of a resource, adding it if new
+    private int resourceRef(CampusResource resource) {
+        Integer ref = resourceRefs.get(resource);
+        if (ref == null) {
+            ref = resourceTable.size();
+            resourceTable.add(resource);
+            resourceRefs.put(resource, ref);
+        }
+        return ref;
+    }
+
+    // Returns the record position of a reservation, adding it if new
+    private int recordRef(Reservation reservation) {
+        Integer ref = recordRefs.get(reservation);
+        if (ref == null) {
+            ref = records.size();
+            records.add(reservation);
+            recordRefs.put(reservation, ref);
+        }
+        return ref;
+    }
+
+    // ========== READING ==========
+
+    // Reads contents written by write, checking their checksum (the input
+    // should be buffered); archivePath is where the save file's archive file lives
+    public static Contents read(InputStream source, Path archivePath) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream in = new DataInputStream(new CheckedInputStream(source, crc));
+        Contents contents = readContents(in, archivePath);
+        int expected = (int) crc.getValue();
+        if (new DataInputStream(source).readInt() != expected) {
+            throw new IOException("Save file checksum mismatch");
+        }
+        return contents;
+    }
+
+    // Reads the tables and what refers to them
+    private static Contents readContents(DataInputStream in, Path archivePath) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a binary save file");
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported save file version: " + version);
+        }
+        AtomicLong reservationSequence = new AtomicLong(in.readLong());
+        AtomicLong userSequence = new AtomicLong(in.readLong());
+        int compactionThreshold = in.readInt();
+        long journalGeneration = in.readLong();
+        long journalCheckpoint = in.readLong();
+
+        List<String> irregularIds = readStrings(in);
+        List<String> usernames = readStrings(in);
+        int userCount = readCount(in);
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            String username = usernames.get(readRef(in, usernames.size()));
+            String userId = readOptional(in);
+            users.add(in.readBoolean() ? new Administrator(username, userId)
+                                       : new Student(username, userId));
+        }
+        int tableSize = readCount(in);
+        int resourceCount = readCount(in);
+        if (resourceCount > tableSize) throw new IOException("Corrupt resource table");
+        List<CampusResource> resourceTable = new ArrayList<>(tableSize);
+        for (int i = 0; i < tableSize; i++) {
+            resourceTable.add(readResource(in));
+        }
+
+        int recordCount = readCount(in);
+        int liveCount = readCount(in);
+        if (liveCount > recordCount) throw new IOException("Corrupt reservation table");
+        List<Reservation> records = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            long number = in.readLong();
+            String reservationId = number >= 0 ? "RES-" + number
+                : irregularIds.get(readRef(-1 - number, irregularIds.size()));
+            CampusResource resource = resourceTable.get(readRef(in, tableSize));
+            String username = usernames.get(readRef(in, usernames.size()));
+            int day = readRef(in.readUnsignedByte(), ResourceSchedule.DAYS_PER_WEEK);
+            int slot = readRef(in.readUnsignedByte(), ResourceSchedule.SLOTS_PER_DAY);
+            Reservation reservation = new Reservation(reservationId, resource, username, day, slot);
+            if (in.readByte() == CANCELLED) reservation.cancel();
+            records.add(reservation);
+        }
+
+        int scheduleCount = readCount(in);
+        List<ResourceSchedule> schedules = new ArrayList<>(scheduleCount);
+        for (int i = 0; i < scheduleCount; i++) {
+            int ref = in.readInt();
+            String resourceId = ref == NONE ? in.readUTF()
+                : resourceTable.get(readRef(ref, resourceCount)).getId();
+            ResourceSchedule schedule = new ResourceSchedule(resourceId);
+            for (int day = 0; day < ResourceSchedule.DAYS_PER_WEEK; day++) {
+                for (int slot = 0; slot < ResourceSchedule.SLOTS_PER_DAY; slot++) {
+                    int record = in.readInt();
+                    if (record != NONE) {
+                        schedule.addReservation(day, slot, records.get(readRef(record, recordCount)));
+                    }
+                }
+            }
+            schedules.add(schedule);
+        }
+
+        ReservationArchive archive =
+            ReservationArchive.readFrom(in, version, resourceTable, usernames, archivePath);
+        return new Contents(new ArrayList<>(resourceTable.subList(0, resourceCount)), users,
+                            new ArrayList<>(records.subList(0, liveCount)), archive, schedules,
+                            compactionThreshold, reservationSequence, userSequence,
+                            journalGeneration, journalCheckpoint);
+    }
+
+    // Reads a resource written by writeResource
+    private static CampusResource readResource(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        String id = in.readUTF();
+        String name = readOptional(in);
+        switch (kind) {
+            case STUDY_ROOM:
+                return new StudyRoom(id, name, in.readInt());
+            case LAB_EQUIPMENT:
+                return new LabEquipment(id, name, readOptional(in));
+            default:
+                throw new IOException("Unknown resource kind: " + kind);
+        }
+    }
+
+    // Reads a table position, checking it is in range
+    private static int readRef(DataInputStream in, int size) throws IOException {
+        return readRef(in.readInt(), size);
+    }
+
+    // Checks a table position read from the file is in range
+    private static int readRef(long ref, int size) throws IOException {
+        if (ref < 0 || ref >= size) throw new IOException("Corrupt table reference: " + ref);
+        return (int) ref;
+    }
+
+    // Reads an element count, checking it is not negative
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Corrupt count: " + count);
+        return count;
+    }
+
+    // ========== STRINGS ==========
+
+    // Writes a table of strings
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String value : strings) writeOptional(out, value);
+    }
+
+    // Reads a table written by writeStrings
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = readCount(in);
+        List<String> strings = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) strings.add(readOptional(in));
+        return strings;
+    }
+
+    // Writes a string that may be null
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    // Reads a string written by writeOptional
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Benchmark comparing the binary save format (see SaveFileCodec) with the
+ * object serialization earlier versions wrote
+ * For each data size it reports the file size and the fastest save and load
+ * of each format. The serialized file is written the way earlier versions
+ * saved it, through an unbuffered object stream (the binary save also syncs
+ * the file to disk before moving it into place); both are loaded with
+ * loadFromFile, which reads either format.
+ * Run: java SaveFormatBenchmark [largestResourceCount] [runsPerMeasurement]
+ */
+public class SaveFormatBenchmark {
+    // Defaults used when no size or run count is given on the command line
+    private static final int DEFAULT_MAX_RESOURCES = 4000;
+    private static final int DEFAULT_RUNS = 5;
+    // Bookings made per resource; every fifth one is then cancelled
+    private static final int BOOKINGS_PER_RESOURCE = 25;
+
+    // Console output, kept while saves and loads print their progress to nowhere
+    private static final PrintStream CONSOLE = System.out;
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    // Program entry point
+    public static void main(String[] args) throws Exception {
+        int maxResources = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_RESOURCES;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+        Path dir = Files.createTempDirectory("saveformat");
+        String binaryFile = dir.resolve("campus.bin").toString();
+        String serializedFile = dir.resolve("campus.ser").toString();
+        try {
+            // Warm up both formats so the first size is not paying for JIT compilation
+            measure(Math.min(maxResources, 250), 2, binaryFile, serializedFile);
+
+            CONSOLE.println("\n=== SAVE FORMATS: best of " + runs + " runs ===");
+            CONSOLE.printf("  %-10s %-13s %-22s %-22s %-22s%n", "resources", "reservations",
+                           "file KB (bin / ser)", "save ms (bin / ser)", "load ms (bin / ser)");
+            for (int resources = maxResources / 16; resources <= maxResources; resources *= 2) {
+                long[] result = measure(resources, runs, binaryFile, serializedFile);
+                CONSOLE.printf("  %-10d %-13d %-22s %-22s %-22s%n", resources, result[0],
+                               (result[1] / 1024) + " / " + (result[2] / 1024),
+                               String.format("%.1f / %.1f", result[3] / 1e6, result[4] / 1e6),
+                               String.format("%.1f / %.1f", result[5] / 1e6, result[6] / 1e6));
+            }
+        } finally {
+            System.setOut(CONSOLE);
+            for (String file : new String[] {binaryFile, binaryFile + ".tmp", serializedFile}) {
+                Files.deleteIfExists(Paths.get(file));
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // Builds a system of the given size and times both formats; returns the
+    // reservation count, both file sizes, and the binary / serialized save
+    // and load times in nanoseconds
+    private static long[] measure(int resources, int runs, String binaryFile,
+                                  String serializedFile) throws Exception {
+        System.setOut(DISCARD);
+        try {
+            CampusSystem campus = buildCampus(resources);
+            long[] result = new long[7];
+            result[0] = campus.getReservationHistory().size();
+            result[3] = result[4] = result[5] = result[6] = Long.MAX_VALUE;
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                campus.consolidate(binaryFile);
+                result[3] = Math.min(result[3], System.nanoTime() - start);
+
+                start = System.nanoTime();
+                writeSerialized(campus, serializedFile);
+                result[4] = Math.min(result[4], System.nanoTime() - start);
+
+                start = System.nanoTime();
+                CampusSystem binary = CampusSystem.loadFromFile(binaryFile);
+                result[5] = Math.min(result[5], System.nanoTime() - start);
+
+                start = System.nanoTime();
+                CampusSystem serialized = CampusSystem.loadFromFile(serializedFile);
+                result[6] = Math.min(result[6], System.nanoTime() - start);
+
+                if (binary.getReservationHistory().size() != result[0]
+                    || serialized.getReservationHistory().size() != result[0]) {
+                    throw new IllegalStateException("Reloaded system lost reservations");
+                }
+            }
+            result[1] = Files.size(Paths.get(binaryFile));
+            result[2] = Files.size(Paths.get(serializedFile));
+            return result;
+        } finally {
+            System.setOut(CONSOLE);
+        }
+    }
+
+    // Creates a system with the default data plus the given number of
+    // resources, each booked and partly cancelled
+    private static CampusSystem buildCampus(int resources) throws Exception {
+        CampusSystem campus = new CampusSystem();
+        for (int i = 0; i < resources; i++) {
+            if (i % 3 == 0) {
+                campus.addResource(new LabEquipment("SF" + i, "Format Kit " + i, "Physics"), "admin");
+            } else {
+                campus.addResource(new StudyRoom("SF" + i, "Format Room " + i, 4 + i % 20), "admin");
+            }
+        }
+        for (int i = 0; i < resources; i++) {
+            for (int n = 0; n < BOOKINGS_PER_RESOURCE; n++) {
+                Reservation reservation = campus.makeReservation(
+                    "SF" + i, "user" + (i * 7 + n) % 300,
+                    n / ResourceSchedule.SLOTS_PER_DAY, n % ResourceSchedule.SLOTS_PER_DAY);
+                if (n % 5 == 0) campus.cancelReservation(reservation.getReservationId(), "admin");
+            }
+        }
+        return campus;
+    }
+
+    // Writes the system the way earlier versions saved it
+    private static void writeSerialized(CampusSystem campus, String filename) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
+            out.writeObject(campus);
+        }
+    }
+}
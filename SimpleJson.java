@@ -0,0 +1,169 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the HTTP service
+ * Reads flat objects (string, number, boolean and null values) and
+ * escapes strings for output; nested objects and arrays are rejected
+ */
+public class SimpleJson {
+    // Text being parsed and the current read position
+    private final String text;
+    private int pos;
+
+    // Constructor used by parseObject
+    private SimpleJson(String text) {
+        this.text = text;
+    }
+
+    // Parses a flat JSON object into a map (numbers become Long or Double)
+    public static Map<String, Object> parseObject(String text) throws InvalidInputException {
+        if (text == null || text.trim().isEmpty()) {
+            throw new InvalidInputException("Request body must be a JSON object.");
+        }
+        SimpleJson parser = new SimpleJson(text);
+        Map<String, Object> values = parser.readObject();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("unexpected trailing content");
+        }
+        return values;
+    }
+
+    // Returns a string as a quoted JSON string literal ("null" for null)
+    public static String quote(String value) {
+        if (value == null) return "null";
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':  out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    // Reads "{ key: value, ... }"
+    private Map<String, Object> readObject() throws InvalidInputException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return values;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            values.put(key, readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') return values;
+            if (c != ',') throw error("expected ',' or '}'");
+        }
+    }
+
+    // Reads a string, number, boolean or null value
+    private Object readValue() throws InvalidInputException {
+        char c = peek();
+        if (c == '"') return readString();
+        if (c == '-' || (c >= '0' && c <= '9')) return readNumber();
+        if (text.startsWith("true", pos)) { pos += 4; return Boolean.TRUE; }
+        if (text.startsWith("false", pos)) { pos += 5; return Boolean.FALSE; }
+        if (text.startsWith("null", pos)) { pos += 4; return null; }
+        throw error("unsupported value");
+    }
+
+    // Reads a quoted string, decoding escapes
+    private String readString() throws InvalidInputException {
+        expect('"');
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') return out.toString();
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"': case '\\': case '/': out.append(escaped); break;
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > text.length()) throw error("bad unicode escape");
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default: throw error("bad escape");
+            }
+        }
+    }
+
+    // Reads a number as Long when integral, Double otherwise
+    private Object readNumber() throws InvalidInputException {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        String number = text.substring(start, pos);
+        try {
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                return Long.parseLong(number);
+            }
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("bad number '" + number + "'");
+        }
+    }
+
+    // Skips spaces, tabs and line breaks
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    // Consumes one expected character
+    private void expect(char expected) throws InvalidInputException {
+        if (next() != expected) throw error("expected '" + expected + "'");
+    }
+
+    // Returns the current character without consuming it
+    private char peek() throws InvalidInputException {
+        if (pos >= text.length()) throw error("unexpected end of input");
+        return text.charAt(pos);
+    }
+
+    // Consumes and returns the current character
+    private char next() throws InvalidInputException {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    // Builds a parse error pointing at the current position
+    private InvalidInputException error(String problem) {
+        return new InvalidInputException("Invalid JSON at position " + pos + ": " + problem);
+    }
+}
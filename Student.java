@@ -3,9 +3,12 @@
  * Can only view resources and manage own reservations
  */
 public class Student extends User {
-    // Constructor calls parent User class with provided username
-    public Student(String username) { 
-        super(username); 
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = 1414720101861616761L;
+    
+    // Constructor calls parent User class with provided username and ID
+    public Student(String username, String userId) { 
+        super(username, userId); 
     }
     
     @Override
@@ -3,6 +3,9 @@
  * Examples: Computer Lab, Group Study Room, Presentation Room
  */
 public class StudyRoom extends CampusResource {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = -3731493780404525002L;
+    
     // Maximum number of people the room can accommodate
     private int capacity;
     
@@ -28,8 +31,8 @@ public class StudyRoom extends CampusResource {
     }
     
     @Override
-    public String getResourceType() { 
-        return "Study Room"; 
+    public ResourceType getType() { 
+        return ResourceType.STUDY_ROOM; 
     }
     
     @Override
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive substring index over resource ordinals
+ * Maps every three-character sequence of a key to the ordinals containing it
+ */
+public class TrigramIndex {
+    // Length of the character sequences used as index terms
+    private static final int GRAM_LENGTH = 3;
+
+    // Posting list per trigram: ordinals whose key contains that trigram
+    private final Map<String, BitSet> postings;
+    // Lower-cased key per ordinal (null when the ordinal is unused)
+    private final List<String> keys;
+    // Ordinals currently holding a key
+    private final BitSet present;
+
+    // Constructor creates an empty index
+    public TrigramIndex() {
+        postings = new HashMap<>();
+        keys = new ArrayList<>();
+        present = new BitSet();
+    }
+
+    // Indexes text under an ordinal, replacing any previous text
+    public void put(int ordinal, String text) {
+        remove(ordinal);
+        String key = text.toLowerCase();
+        while (keys.size() <= ordinal) {
+            keys.add(null);
+        }
+        keys.set(ordinal, key);
+        present.set(ordinal);
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            postings.computeIfAbsent(key.substring(i, i + GRAM_LENGTH), g -> new BitSet())
+                    .set(ordinal);
+        }
+    }
+
+    // Removes whatever text is indexed under an ordinal
+    public void remove(int ordinal) {
+        if (ordinal >= keys.size() || keys.get(ordinal) == null) return;
+        String key = keys.get(ordinal);
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            String gram = key.substring(i, i + GRAM_LENGTH);
+            BitSet posting = postings.get(gram);
+            if (posting != null) {
+                posting.clear(ordinal);
+                if (posting.isEmpty()) postings.remove(gram);
+            }
+        }
+        keys.set(ordinal, null);
+        present.clear(ordinal);
+    }
+
+    // Keeps only the candidates whose key contains the query, checking keys
+    // directly (cheaper than the posting lists when few candidates remain)
+    public BitSet retainMatching(BitSet candidates, String query) {
+        String lowerQuery = query.toLowerCase().trim();
+        BitSet matches = (BitSet) candidates.clone();
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            if (i >= keys.size() || keys.get(i) == null || !keys.get(i).contains(lowerQuery)) {
+                matches.clear(i);
+            }
+        }
+        return matches;
+    }
+
+    // Returns ordinals whose key contains the query (case-insensitive)
+    public BitSet search(String query) {
+        String lowerQuery = query.toLowerCase().trim();
+        BitSet candidates;
+        if (lowerQuery.length() < GRAM_LENGTH) {
+            // Too short to use trigrams, check every key
+            candidates = (BitSet) present.clone();
+        } else {
+            // Intersect posting lists, starting from the rarest trigram
+            List<BitSet> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM_LENGTH <= lowerQuery.length(); i++) {
+                BitSet posting = postings.get(lowerQuery.substring(i, i + GRAM_LENGTH));
+                if (posting == null) return new BitSet();
+                lists.add(posting);
+            }
+            lists.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+            candidates = (BitSet) lists.get(0).clone();
+            for (int i = 1; i < lists.size() && !candidates.isEmpty(); i++) {
+                candidates.and(lists.get(i));
+            }
+        }
+        // Shared trigrams do not guarantee a match, so confirm each candidate
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (!keys.get(i).contains(lowerQuery)) {
+                candidates.clear(i);
+            }
+        }
+        return candidates;
+    }
+}
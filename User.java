@@ -1,24 +1,22 @@
 import java.io.Serializable;
-import java.util.List;
 
 /**
  * Abstract user class defining role-based permissions
  * Base class for Administrator and Student
  */
 public abstract class User implements Serializable {
+    // Pinned serialization ID (see CampusSystem)
+    private static final long serialVersionUID = -8928409305767578833L;
+    
     // User's login name
     protected String username;
-    // Unique system-generated user ID
+    // Unique system-generated user ID (issued by CampusSystem)
     protected String userId;
-    // Static counter for generating unique user IDs
-    private static int userCounter = 1000; 
-    // Tracks highest loaded user ID to prevent duplicates
-    private static int lastSavedMaxId = 1000;
 
-    // Constructor initializes user with username and generates ID
-    public User(String username) {
+    // Constructor initializes user with username and assigned ID
+    public User(String username, String userId) {
         this.username = username;
-        this.userId = generateUserId();
+        this.userId = userId;
     }
     
     // Returns the user's login name
@@ -26,31 +24,14 @@ public abstract class User implements Serializable {
     // Returns the user's unique system ID
     public String getUserId() { return userId; }
     
-    // Generates unique user ID ensuring no duplicates after save/load
-    private String generateUserId() {
-        // Ensure new IDs start above highest loaded ID
-        if (lastSavedMaxId >= userCounter) {
-            userCounter = lastSavedMaxId;
-        }
-        userCounter++;
-        return "USER-" + userCounter;
-    }
-    
-    // Updates ID tracking from loaded users to prevent duplicates
-    public static void updateFromLoadedUsers(List<User> users) {
-        for (User user : users) {
-            String id = user.getUserId();
-            if (id.startsWith("USER-")) {
-                try {
-                    // Extract numeric portion of ID
-                    int num = Integer.parseInt(id.substring(5));
-                    if (num > lastSavedMaxId) {
-                        lastSavedMaxId = num;
-                    }
-                } catch (Exception e) {
-                    // Skip invalid IDs
-                }
-            }
+    // Returns the numeric part of a "USER-n" ID, or -1 if the ID has another form
+    public static long sequenceOf(String userId) {
+        if (userId == null || !userId.startsWith("USER-")) return -1;
+        try {
+            long sequence = Long.parseLong(userId.substring(5));
+            return sequence >= 0 ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
     